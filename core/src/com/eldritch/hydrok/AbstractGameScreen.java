@@ -3,10 +3,7 @@ package com.eldritch.hydrok;
 import static com.eldritch.hydrok.util.Settings.CHUNK_WIDTH;
 import static com.eldritch.hydrok.util.Settings.CHUNK_HEIGHT;
 import static com.eldritch.hydrok.util.Settings.SCALE;
-
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import static com.eldritch.hydrok.util.Settings.MAX_PARTICLES;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputProcessor;
@@ -15,12 +12,10 @@ import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.physics.box2d.Box2DDebugRenderer;
@@ -29,29 +24,40 @@ import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Label.LabelStyle;
 import com.badlogic.gdx.utils.viewport.StretchViewport;
 import com.eldritch.hydrok.activator.Terminator;
-import com.eldritch.hydrok.entity.Entity;
+import com.eldritch.hydrok.level.ActivatorTriggers;
+import com.eldritch.hydrok.level.ChunkPool;
 import com.eldritch.hydrok.level.MapChunkGenerator.MapChunkGeneratorFactory;
 import com.eldritch.hydrok.level.ProceduralTiledMap;
 import com.eldritch.hydrok.level.ProceduralTiledMapRenderer;
 import com.eldritch.hydrok.player.Player;
 import com.eldritch.hydrok.player.Player.Phase;
 import com.eldritch.hydrok.screen.GameOverScreen;
+import com.eldritch.hydrok.util.AssetRegistry;
 import com.eldritch.hydrok.util.HydrokContactListener;
+import com.eldritch.hydrok.util.ParticleSystem;
+import com.eldritch.hydrok.util.PhysicsStepper;
+import com.eldritch.hydrok.util.RenderQueue;
+import com.eldritch.hydrok.util.RenderQueue.Layer;
+import com.eldritch.hydrok.util.SpriteAtlas;
 
 public abstract class AbstractGameScreen extends AbstractScreen implements InputProcessor {
     private static final float ZOOM = 0.4f;
     private static final float DEBUG_ZOOM = 2.8f;
     
 	public static final AssetManager textureManager = new AssetManager();
+	public static final AssetRegistry assets = new AssetRegistry(textureManager);
+	private static final SpriteAtlas sprites = new SpriteAtlas();
+	private static final ParticleSystem particles = new ParticleSystem(MAX_PARTICLES);
 	
-	private final List<Entity> entities = new ArrayList<Entity>();
 	private final MapChunkGeneratorFactory factory;
 	private ProceduralTiledMap map;
 	private OrthographicCamera camera;
 	private Player player;
 	private World world;
 	private HydrokContactListener contactListener;
-	private OrthogonalTiledMapRenderer renderer;
+	private ProceduralTiledMapRenderer renderer;
+	private PhysicsStepper physics;
+	private RenderQueue queue;
 	private Terminator terminator;
 	
 	private Box2DDebugRenderer debugRenderer;
@@ -75,14 +81,20 @@ public abstract class AbstractGameScreen extends AbstractScreen implements Input
 	@Override
 	public void show() {
 		world = new World(new Vector2(0, -10), true);
+		particles.clear();
 		player = new Player(world, 11, 3);
 		
 		contactListener = player.getContactListener();
         world.setContactListener(contactListener);
+        physics = new PhysicsStepper(world);
+        queue = new RenderQueue(physics);
 		
 		map = new ProceduralTiledMap(contactListener, world, factory, CHUNK_WIDTH, CHUNK_HEIGHT);
 		renderer = new ProceduralTiledMapRenderer(map, SCALE);
 		
+		// switch phases on activator cells the player moves into
+		physics.addListener(new ActivatorTriggers(map, player));
+		
 		// game ends when terminator hits the player
 		terminator = new Terminator(world, map, player);
 
@@ -99,7 +111,7 @@ public abstract class AbstractGameScreen extends AbstractScreen implements Input
 		font = getFont();
 		batch = new SpriteBatch();
 		textBatch = new SpriteBatch();
-		bg = new TextureRegion(new Texture("background/grasslands.png"));
+		bg = getBackground();
 		startX = (int) player.getPosition().x;
 		distance = 0;
 		
@@ -168,25 +180,15 @@ public abstract class AbstractGameScreen extends AbstractScreen implements Input
         }
 		
 		// bookkeeping
-		Iterator<Entity> it = entities.iterator();
-		while (it.hasNext()) {
-		    Entity entity = it.next();
-		    if (map.getOriginX() > entity.getPosition().x) {
-		        entity.dispose(world);
-		        it.remove();
-		    }
-		}
-		map.addEntitiesTo(entities);
 		distance = Math.max((int) player.getPosition().x - startX, distance);
 		distanceLabel.setText(getLabelText());
 		distanceLabel.setColor(1, getIntensity(), getIntensity(), 1);
 		
 		// updates
-		for (Entity entity : entities) {
-            entity.update(delta);
-        }
+		map.getEntities().update(delta);
+		particles.update(delta);
 		player.update(delta);
-		map.update(player);
+		map.update(player, terminator.getVelocity());
 		
 		// check for game over
 		terminator.update(delta);
@@ -197,21 +199,27 @@ public abstract class AbstractGameScreen extends AbstractScreen implements Input
 		    }
 		}
 		
-		// update camera position
-		Vector2 position = player.getPosition();
+		// update camera position, following the player as drawn
+		Vector2 position = physics.getPosition(player.getBody());
 		float scale = 500 * camera.zoom / SCALE;
         camera.position.x = Math.round((position.x + 3) * scale) / scale;
         camera.position.y = Math.round(position.y * scale) / scale;
         camera.update();
 		
-		// set the tile map renderer view based on what the camera sees and render the map
-        player.render(renderer);
+		// set the tile map renderer view based on what the camera sees
 		renderer.setView(camera);
+		
+		// queue up the frame's sprites, skipping entities out of view
+		queue.clear();
+		player.render(queue);
+		map.getEntities().render(queue, renderer.getViewBounds());
+		particles.render(queue, renderer.getViewBounds());
+		terminator.render(queue);
+		
+		// render the map, with the player behind it and everything else in front
+		queue.flush(renderer.getSpriteBatch(), Layer.Player);
 		renderer.render();
-		for (Entity entity : entities) {
-            entity.render(renderer);
-        }
-		terminator.render(renderer);
+		queue.flush(renderer.getSpriteBatch(), Layer.Terminator);
 		
 		// debug
 		if (debug) {
@@ -226,7 +234,19 @@ public abstract class AbstractGameScreen extends AbstractScreen implements Input
 		getStage().draw();
 		
 		// update physics state
-		world.step(delta, 6, 2);
+		physics.update(delta);
+	}
+	
+	@Override
+	public void dispose() {
+	    super.dispose();
+	    if (renderer != null) {
+	        renderer.dispose();
+	    }
+	    if (map != null) {
+	        // stops the chunk generator thread
+	        map.dispose();
+	    }
 	}
 	
 	protected abstract String getLabelText();
@@ -240,23 +260,36 @@ public abstract class AbstractGameScreen extends AbstractScreen implements Input
 	}
 	
 	private void drawFps() {
+	    ChunkPool pool = map.getChunkPool();
 	    textBatch.begin();
         font.draw(textBatch,
                 "FPS: " + Gdx.graphics.getFramesPerSecond(),
                 10, getHeight() - 10);
+        font.draw(textBatch,
+                "Chunk pool: " + pool.getHits() + " hits / " + pool.getMisses() + " misses",
+                10, getHeight() - 30);
+        font.draw(textBatch,
+                "Draw calls: " + (batch.renderCalls + renderer.getDrawCalls() + queue.getDrawCalls()),
+                10, getHeight() - 50);
         textBatch.end();
 	}
 	
+	/**
+	 * The particle system shared by every effect in the game.
+	 */
+	public static ParticleSystem getParticles() {
+	    return particles;
+	}
+	
 	public static TextureRegion[][] getRegions(String assetName, int w, int h) {
-		return TextureRegion.split(getTexture(assetName), w, h);
+		return getRegion(assetName).split(w, h);
 	}
 	
-	public static Texture getTexture(String assetName) {
-	    if (!textureManager.isLoaded(assetName, Texture.class)) {
-            textureManager.load(assetName, Texture.class);
-            textureManager.finishLoading();
-        }
-	    return textureManager.get(assetName, Texture.class);
+	/**
+	 * The sprite's region in the shared sprite atlas, which is packed on first use.
+	 */
+	public static TextureRegion getRegion(String assetName) {
+	    return sprites.getRegion(assetName);
 	}
 
     @Override
@@ -2,7 +2,6 @@ package com.eldritch.hydrok;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Screen;
-import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Texture;
@@ -10,29 +9,37 @@ import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
-import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator.FreeTypeFontParameter;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.eldritch.hydrok.util.AssetRegistry;
 
 /**
  * The base class for all game screens.
  */
 public abstract class AbstractScreen implements Screen {
+    private static final String FONT = "skin/kenvector_future.ttf";
+    private static final int FONT_SIZE = 44;
+    private static final String BACKGROUND = "background/grasslands.png";
+    private static final String SKIN_ATLAS = "skin/uiskin.atlas";
+    private static final String PAGES_ATLAS = "image-atlases/pages.atlas";
+    
     private final Color headingColor = new Color(125 / 255f, 177 / 255f, 45 / 255f, 1f);
     
 	protected final HydrokGame game;
 	protected final Stage stage;
 
-	private BitmapFont font;
+	// shared with other screens through the asset registry, see dispose()
+	private final BitmapFont font;
+	private final TextureRegion background;
+	private final TextureAtlas skinAtlas;
+	private TextureAtlas atlas;
+	
 	private SpriteBatch batch;
 	private Skin skin;
-	private TextureAtlas atlas;
 	private Table table;
-	private TextureRegion bg;
 	
 	private int width;
 	private int height;
@@ -43,6 +50,13 @@ public abstract class AbstractScreen implements Screen {
 		width = 800;
 		height = 480;
 		stage.setViewport(new FitViewport(width, height, stage.getViewport().getCamera()));
+		
+		// acquired up front, while the screen being replaced still holds them
+		AssetRegistry assets = AbstractGameScreen.assets;
+		font = assets.acquireFont(FONT, FONT_SIZE);
+		background = new TextureRegion(assets.acquire(BACKGROUND, Texture.class));
+		skinAtlas = Gdx.files.internal(SKIN_ATLAS).exists()
+		        ? assets.acquire(SKIN_ATLAS, TextureAtlas.class) : null;
 	}
 
 	protected String getName() {
@@ -60,16 +74,12 @@ public abstract class AbstractScreen implements Screen {
 	// Lazily loaded collaborators
 
 	public BitmapFont getFont() {
-		if (font == null) {
-		    FreeTypeFontGenerator generator = new FreeTypeFontGenerator(
-		            Gdx.files.internal("skin/kenvector_future.ttf"));
-		    FreeTypeFontParameter parameter = new FreeTypeFontParameter();
-		    parameter.size = 44;
-		    font = generator.generateFont(parameter);
-		    generator.dispose();
-		}
 		return font;
 	}
+	
+	public TextureRegion getBackground() {
+	    return background;
+	}
 
 	public SpriteBatch getBatch() {
 		if (batch == null) {
@@ -80,8 +90,7 @@ public abstract class AbstractScreen implements Screen {
 
 	public TextureAtlas getAtlas() {
 		if (atlas == null) {
-			atlas = new TextureAtlas(
-					Gdx.files.internal("image-atlases/pages.atlas"));
+			atlas = AbstractGameScreen.assets.acquire(PAGES_ATLAS, TextureAtlas.class);
 		}
 		return atlas;
 	}
@@ -91,12 +100,10 @@ public abstract class AbstractScreen implements Screen {
 			skin = new Skin();
 			skin.add("default-font", getFont(), BitmapFont.class);
 			
-			FileHandle skinFile = Gdx.files.internal("skin/uiskin.json");
-			FileHandle atlasFile = skinFile.sibling("uiskin.atlas");
-			if (atlasFile.exists()) {
-			    skin.addRegions(new TextureAtlas(atlasFile));
+			if (skinAtlas != null) {
+			    skin.addRegions(skinAtlas);
 			}
-			skin.load(skinFile);
+			skin.load(Gdx.files.internal("skin/uiskin.json"));
 		}
 		return skin;
 	}
@@ -124,8 +131,7 @@ public abstract class AbstractScreen implements Screen {
 		// set the stage as the input processor
 		Gdx.input.setInputProcessor(stage);
 		
-		bg = new TextureRegion(new Texture("background/grasslands.png"));
-		getStage().addActor(new Image(bg));
+		getStage().addActor(new Image(background));
 	}
 
 	@Override
@@ -187,17 +193,18 @@ public abstract class AbstractScreen implements Screen {
 		// stage.dispose();
 
 		// as the collaborators are lazily loaded, they may be null
-		if (font != null && skin == null) {
-		    // skin will dispose of the font for us
-			font.dispose();
-		}
 		if (batch != null)
 			batch.dispose();
-		if (skin != null) {
-			skin.dispose();
-		}
+		
+		// the skin only holds the shared font and regions, which go back to the registry rather
+		// than being disposed along with it
+		AssetRegistry assets = AbstractGameScreen.assets;
+		assets.releaseFont(FONT, FONT_SIZE);
+		assets.release(BACKGROUND);
+		if (skinAtlas != null)
+			assets.release(SKIN_ATLAS);
 		if (atlas != null)
-			atlas.dispose();
+			assets.release(PAGES_ATLAS);
 	}
 	
 	public int getWidth() {
@@ -9,7 +9,7 @@ public class GameScreen extends AbstractGameScreen {
 	}
 	
 	public GameScreen(HydrokGame game, Randomizer randomizer) {
-		super(game, new MapChunkGeneratorFactory(randomizer));
+		super(game, new MapChunkGeneratorFactory(randomizer, assets));
 	}
 
     @Override
@@ -16,7 +16,7 @@ public class TutorialScreen extends AbstractGameScreen {
 	}
 	
 	public TutorialScreen(HydrokGame game, Randomizer randomizer, TutorialProgress progress) {
-        super(game, new TutorialChunkGeneratorFactory(randomizer, progress));
+        super(game, new TutorialChunkGeneratorFactory(randomizer, assets, progress));
         this.progress = progress;
     }
 	
@@ -3,8 +3,6 @@ package com.eldritch.hydrok.activator;
 import static com.eldritch.hydrok.util.Settings.ALL_BITS;
 import static com.eldritch.hydrok.util.Settings.SCALE;
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
 import com.badlogic.gdx.physics.box2d.Body;
@@ -13,6 +11,7 @@ import com.badlogic.gdx.physics.box2d.CircleShape;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.eldritch.hydrok.GameScreen;
 import com.eldritch.hydrok.player.Player.Phase;
 
 public abstract class ObstaclePhaseActivator extends PhaseActivator {
@@ -40,26 +39,25 @@ public abstract class ObstaclePhaseActivator extends PhaseActivator {
         return body;
     }
     
-    private static StaticTiledMapTile getTile(String asset) {
-        return new StaticTiledMapTile(new TextureRegion(new Texture("collectables/" + asset
-                + ".png")));
+    private static StaticTiledMapTile getCollectable(String asset) {
+        return new StaticTiledMapTile(GameScreen.getRegion("collectables/" + asset + ".png"));
     }
 
     public static class WaterDroplet extends ObstaclePhaseActivator {
         public WaterDroplet(int x, int y, World world) {
-            super(Phase.Liquid, getTile("water-droplet"), x, y, world);
+            super(Phase.Liquid, getCollectable("water-droplet"), x, y, world);
         }
     }
 
     public static class IceShard extends ObstaclePhaseActivator {
         public IceShard(int x, int y, World world) {
-            super(Phase.Solid, getTile("ice-shard"), x, y, world);
+            super(Phase.Solid, getCollectable("ice-shard"), x, y, world);
         }
     }
 
     public static class Fireball extends ObstaclePhaseActivator {
         public Fireball(int x, int y, World world) {
-            super(Phase.Gas, getTile("fireball"), x, y, world);
+            super(Phase.Gas, getCollectable("fireball"), x, y, world);
         }
     }
 }
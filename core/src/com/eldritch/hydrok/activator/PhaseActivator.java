@@ -19,8 +19,10 @@ public abstract class PhaseActivator implements Activator {
         this.y = y;
         this.tile = tile;
         this.body = body;
-        for (Fixture fixture : body.getFixtureList()) {
-            fixture.setUserData(this);
+        if (body != null) {
+            for (Fixture fixture : body.getFixtureList()) {
+                fixture.setUserData(this);
+            }
         }
     }
 
@@ -29,6 +31,12 @@ public abstract class PhaseActivator implements Activator {
         player.setPhase(phase);
     }
 
+    /**
+     * Called once the player no longer overlaps the activator.  Does nothing by default.
+     */
+    public void deactivate(Player player) {
+    }
+
     @Override
     public Body getBody() {
         return body;
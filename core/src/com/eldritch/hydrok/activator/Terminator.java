@@ -3,18 +3,18 @@ package com.eldritch.hydrok.activator;
 import static com.eldritch.hydrok.util.Settings.ALL_BITS;
 import static com.eldritch.hydrok.util.Settings.SCALE;
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.EdgeShape;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.World;
+import com.eldritch.hydrok.GameScreen;
 import com.eldritch.hydrok.level.ProceduralTiledMap;
 import com.eldritch.hydrok.player.Player;
+import com.eldritch.hydrok.util.RenderQueue;
+import com.eldritch.hydrok.util.RenderQueue.Layer;
 
 public class Terminator implements Activator {
     private static final float V = 3.0f;
@@ -27,7 +27,7 @@ public class Terminator implements Activator {
     private boolean gameOver = false;
     
     public Terminator(World world, ProceduralTiledMap map, Player player) {
-        region = new TextureRegion(new Texture("fill/terminator.png"));
+        region = GameScreen.getRegion("fill/terminator.png");
         this.map = map;
         this.player = player;
         maxDelta = map.getChunkWidth() / 2;
@@ -65,14 +65,13 @@ public class Terminator implements Activator {
         return 1 - terminatorDelta / maxDelta;
     }
     
-    public void render(OrthogonalTiledMapRenderer renderer) {
+    public void render(RenderQueue queue) {
         Vector2 position = body.getPosition();
         float width = region.getRegionWidth() * 3 * SCALE;
         float height = map.getHeight();
         
-        Batch batch = renderer.getSpriteBatch();
-        batch.begin();
-        batch.draw(
+        queue.draw(
+                Layer.Terminator,
                 region,
                 position.x - map.getChunkWidth() / 2 - width / 2,
                 position.y - map.getChunkHeight() / 2, 
@@ -83,19 +82,19 @@ public class Terminator implements Activator {
                 1,
                 1,
                 180);
-        batch.draw(
+        queue.draw(
+                Layer.Terminator,
                 region,
                 position.x - map.getChunkWidth() / 2 - width / 2,
                 position.y - map.getChunkHeight() / 2, 
                 width,
                 height);
-        batch.end();
     }
     
     /**
      * Starts at 3, scales up to 10 over time.
      */
-    private float getVelocity() {
+    public float getVelocity() {
         float x = body.getPosition().x;
         float bonus = 7 * x / (5000 + Math.abs(x));
         return V + bonus;
@@ -9,27 +9,13 @@ public abstract class TiledPhaseActivator extends PhaseActivator {
         super(phase, tile, body, x, y);
     }
     
-    public static class LiquidActivator extends TiledPhaseActivator {
-        public LiquidActivator(TiledMapTile tile, int x, int y, Body body) {
-            super(Phase.Liquid, tile, x, y, body);
-        }
-    }
-
-    public static class SolidActivator extends TiledPhaseActivator {
-        public SolidActivator(TiledMapTile tile, int x, int y, Body body) {
-            super(Phase.Solid, tile, x, y, body);
-        }
-    }
-
-    public static class GasActivator extends TiledPhaseActivator {
-        public GasActivator(TiledMapTile tile, int x, int y, Body body) {
-            super(Phase.Gas, tile, x, y, body);
-        }
-    }
-    
-    public static class PlasmaActivator extends TiledPhaseActivator {
-        public PlasmaActivator(TiledMapTile tile, int x, int y, Body body) {
-            super(Phase.Plasma, tile, x, y, body);
+    /**
+     * Stands in for every activator cell of a phase, which are found by position instead of by a
+     * body of their own.
+     */
+    public static class CellActivator extends TiledPhaseActivator {
+        public CellActivator(Phase phase) {
+            super(phase, null, 0, 0, null);
         }
     }
 }
@@ -4,10 +4,7 @@ import static com.eldritch.hydrok.util.Settings.BIT_LIQUID;
 import static com.eldritch.hydrok.util.Settings.BIT_SOLID;
 import static com.eldritch.hydrok.util.Settings.SCALE;
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
@@ -17,7 +14,10 @@ import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.eldritch.hydrok.GameScreen;
 import com.eldritch.hydrok.player.Player;
+import com.eldritch.hydrok.util.RenderQueue;
+import com.eldritch.hydrok.util.RenderQueue.Layer;
 
 public class Barnacle implements Entity {
     private static final float V = 5;
@@ -25,25 +25,15 @@ public class Barnacle implements Entity {
     private final float width;
     private final float height;
     private final TextureRegion texture;
-    private final boolean up;
-    private final int sign;
+    private boolean up;
+    private int sign;
     
-    public Barnacle(int x, int y, float offsetY, boolean up, World world) {
-        texture = new TextureRegion(new Texture("sprite/barnacle.png"));
-        this.up = up;
-        this.sign = up ? 1 : -1;
-        
-        float h = texture.getRegionHeight() * SCALE * 0.5f;
-        float worldY = y - h;
-        if (up) {
-            worldY += offsetY / 2;
-        } else {
-            worldY -= offsetY + h;
-        }
+    public Barnacle(World world) {
+        texture = GameScreen.getRegion("sprite/barnacle.png");
         
         BodyDef bodyDef = new BodyDef();
         bodyDef.type = BodyType.StaticBody;
-        bodyDef.position.set(x, worldY);
+        bodyDef.active = false;
         body = world.createBody(bodyDef);
 
         float r = (Math.min(texture.getRegionWidth(), texture.getRegionHeight()) / 2) * SCALE;
@@ -67,23 +57,40 @@ public class Barnacle implements Entity {
         circle.dispose();
     }
     
+    public void spawn(int x, int y, float offsetY, boolean up) {
+        this.up = up;
+        this.sign = up ? 1 : -1;
+        
+        float h = texture.getRegionHeight() * SCALE * 0.5f;
+        float worldY = y - h;
+        if (up) {
+            worldY += offsetY / 2;
+        } else {
+            worldY -= offsetY + h;
+        }
+        body.setTransform(x, worldY, 0);
+        body.setActive(true);
+    }
+    
     @Override
     public void update(float delta) {
     }
     
     @Override
-    public void render(OrthogonalTiledMapRenderer renderer) {
+    public void render(RenderQueue queue) {
         float rotation = up ? 0 : 180;
-        Vector2 position = body.getPosition();
-        Batch batch = renderer.getSpriteBatch();
-        batch.begin();
-        batch.draw(texture,
+        Vector2 position = queue.getPosition(body);
+        queue.draw(Layer.Entity, texture,
                 position.x - width / 2, position.y - height / 2, // position
                 width / 2, height / 2, // origin
                 width, height, // size
                 1, 1, // scale
                 rotation);
-        batch.end();
+    }
+
+    @Override
+    public void despawn() {
+        body.setActive(false);
     }
 
     @Override
@@ -3,10 +3,7 @@ package com.eldritch.hydrok.entity;
 import static com.eldritch.hydrok.util.Settings.BIT_GAS;
 import static com.eldritch.hydrok.util.Settings.SCALE;
 
-import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
@@ -18,24 +15,29 @@ import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
 import com.eldritch.hydrok.GameScreen;
 import com.eldritch.hydrok.player.Player;
+import com.eldritch.hydrok.util.ParticleSystem.Emitter;
+import com.eldritch.hydrok.util.RenderQueue;
 
 public class Blower implements Entity {
     private static final float V = 2.5f;
-    private final Particle[] particles = new Particle[6];
+    private static final int PARTICLES = 6;
+    private static final float RANGE = (float) Math.sqrt(2);
+    private static final float FADE = 0.5f;
+    
+    private final Emitter particles = GameScreen.getParticles().newEmitter();
     private final Body body;
     private final float width;
     private final float height;
     private final TextureRegion[][] regions;
-    private final Vector2 velocity;
+    private final Vector2 velocity = new Vector2();
     
-    public Blower(int x, int y, World world) {
+    public Blower(World world) {
         int d = 64;
         regions = GameScreen.getRegions("sprite/wind.png", d, d);
-        velocity = randomVector2();
         
         BodyDef bodyDef = new BodyDef();
         bodyDef.type = BodyType.KinematicBody;
-        bodyDef.position.set(x, y);
+        bodyDef.active = false;
         body = world.createBody(bodyDef);
 
         CircleShape circle = new CircleShape();
@@ -56,41 +58,41 @@ public class Blower implements Entity {
         height = 2 * d * SCALE;
 
         circle.dispose();
+    }
+    
+    public void spawn(int x, int y) {
+        body.setTransform(x, y, 0);
+        body.setActive(true);
+        velocity.set((float) (Math.random() * 2 + -1), (float) (Math.random() * 2 + -1)).nor();
         
         // init particle effects
-        for (int i = 0; i < particles.length; i++) {
-            particles[i] = new Particle();
-            particles[i].reset(randomRegion(regions), randomVector2());
+        for (int i = 0; i < PARTICLES; i++) {
+            emit(1);
         }
     }
     
     @Override
     public void update(float delta) {
-        for (Particle particle : particles) {
-            particle.update(delta);
-            if (particle.isFinished()) {
-                particle.reset(randomRegion(regions), randomVector2(0.2f));
-            }
+        // replace the particles that have blown away
+        for (int i = particles.getLive(); i < PARTICLES; i++) {
+            emit(0.2f);
         }
     }
     
     @Override
-    public void render(OrthogonalTiledMapRenderer renderer) {
-        Vector2 position = body.getPosition();
-        Batch batch = renderer.getSpriteBatch();
-        batch.begin();
-        for (Particle particle : particles) {
-            batch.setColor(1, 1, 1, particle.alpha);
-            batch.draw(particle.region,
-                    position.x + particle.offset.x - width / 2,
-                    position.y + particle.offset.y - height / 2, width, height);
-            batch.setColor(Color.WHITE);
-        }
-        batch.end();
+    public void render(RenderQueue queue) {
+        // particles are drawn by the shared particle system
+    }
+
+    @Override
+    public void despawn() {
+        particles.kill();
+        body.setActive(false);
     }
 
     @Override
     public void dispose(World world) {
+        particles.kill();
         world.destroyBody(body);
     }
 
@@ -109,26 +111,14 @@ public class Blower implements Entity {
         return body;
     }
     
-    private class Particle {
-        private final Vector2 offset = new Vector2();
-        private TextureRegion region;
-        private float alpha = 1;
-        
-        public void update(float delta) {
-            float scale = delta * V * 0.5f;
-            offset.add(velocity.x * scale, velocity.y * scale);
-            alpha = Math.max(0, alpha - delta * 0.5f);
-        }
-        
-        public void reset(TextureRegion region, Vector2 offset) {
-            this.region = region;
-            this.offset.set(offset);
-            alpha = 1;
-        }
-        
-        public boolean isFinished() {
-            return offset.len2() > 2;
-        }
+    private void emit(float distance) {
+        // a random direction, without allocating a vector for it
+        double angle = Math.random() * 2 * Math.PI;
+        float offsetX = (float) Math.cos(angle) * distance;
+        float offsetY = (float) Math.sin(angle) * distance;
+        Vector2 position = body.getPosition();
+        particles.emit(randomRegion(regions), position.x, position.y, offsetX, offsetY,
+                velocity.x * V * 0.5f, velocity.y * V * 0.5f, RANGE, FADE, width, height);
     }
     
     private static TextureRegion randomRegion(TextureRegion[][] regions) {
@@ -136,12 +126,4 @@ public class Blower implements Entity {
         int j = (int) (Math.random() * regions[i].length);
         return regions[i][j];
     }
-    
-    private static Vector2 randomVector2() {
-        return randomVector2(1);
-    }
-    
-    private static Vector2 randomVector2(float scale) {
-        return new Vector2((float) (Math.random() * 2 + -1), (float) (Math.random() * 2 + -1)).nor().scl(scale);
-    }
 }
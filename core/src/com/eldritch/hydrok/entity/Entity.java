@@ -1,14 +1,19 @@
 package com.eldritch.hydrok.entity;
 
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.World;
 import com.eldritch.hydrok.activator.Activator;
+import com.eldritch.hydrok.util.RenderQueue;
 
 public interface Entity extends Activator {
     void update(float delta);
     
-    void render(OrthogonalTiledMapRenderer renderer);
+    void render(RenderQueue queue);
+    
+    /**
+     * Switches the entity off, keeping its body, so it can be spawned again somewhere else.
+     */
+    void despawn();
     
     void dispose(World world);
     
@@ -3,10 +3,7 @@ package com.eldritch.hydrok.entity;
 import static com.eldritch.hydrok.util.Settings.BIT_SOLID;
 import static com.eldritch.hydrok.util.Settings.SCALE;
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
@@ -16,7 +13,10 @@ import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.eldritch.hydrok.GameScreen;
 import com.eldritch.hydrok.player.Player;
+import com.eldritch.hydrok.util.RenderQueue;
+import com.eldritch.hydrok.util.RenderQueue.Layer;
 
 public class Fly implements Entity {
     private static final float V = -1.5f;
@@ -25,12 +25,12 @@ public class Fly implements Entity {
     private final float height;
     private final TextureRegion texture;
     
-    public Fly(int x, int y, World world) {
-        texture = new TextureRegion(new Texture("sprite/fly.png"));
+    public Fly(World world) {
+        texture = GameScreen.getRegion("sprite/fly.png");
         
         BodyDef bodyDef = new BodyDef();
         bodyDef.type = BodyType.KinematicBody;
-        bodyDef.position.set(x, y);
+        bodyDef.active = false;
         body = world.createBody(bodyDef);
 
         float d = Math.min(texture.getRegionWidth(), texture.getRegionHeight()) / 2;
@@ -56,6 +56,11 @@ public class Fly implements Entity {
         circle.dispose();
     }
     
+    public void spawn(int x, int y) {
+        body.setTransform(x, y, 0);
+        body.setActive(true);
+    }
+    
     @Override
     public void update(float delta) {
         float nextX = body.getPosition().x + delta * V;
@@ -63,12 +68,15 @@ public class Fly implements Entity {
     }
     
     @Override
-    public void render(OrthogonalTiledMapRenderer renderer) {
-        Vector2 position = body.getPosition();
-        Batch batch = renderer.getSpriteBatch();
-        batch.begin();
-        batch.draw(texture, position.x - width / 2, position.y - height / 2, width, height);
-        batch.end();
+    public void render(RenderQueue queue) {
+        Vector2 position = queue.getPosition(body);
+        queue.draw(Layer.Entity, texture, position.x - width / 2, position.y - height / 2, width,
+                height);
+    }
+
+    @Override
+    public void despawn() {
+        body.setActive(false);
     }
 
     @Override
@@ -3,10 +3,7 @@ package com.eldritch.hydrok.entity;
 import static com.eldritch.hydrok.util.Settings.BIT_LIQUID;
 import static com.eldritch.hydrok.util.Settings.SCALE;
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
@@ -16,7 +13,10 @@ import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.eldritch.hydrok.GameScreen;
 import com.eldritch.hydrok.player.Player;
+import com.eldritch.hydrok.util.RenderQueue;
+import com.eldritch.hydrok.util.RenderQueue.Layer;
 
 public class Slime implements Entity {
     private static final float V = -1.5f;
@@ -26,7 +26,7 @@ public class Slime implements Entity {
     private final TextureRegion texture;
     
     public Slime(int x, int y, World world) {
-        texture = new TextureRegion(new Texture("sprite/slime.png"));
+        texture = GameScreen.getRegion("sprite/slime.png");
         
         BodyDef bodyDef = new BodyDef();
         bodyDef.type = BodyType.DynamicBody;
@@ -62,12 +62,15 @@ public class Slime implements Entity {
     }
     
     @Override
-    public void render(OrthogonalTiledMapRenderer renderer) {
-        Vector2 position = body.getPosition();
-        Batch batch = renderer.getSpriteBatch();
-        batch.begin();
-        batch.draw(texture, position.x - width / 2, position.y - height / 2, width, height);
-        batch.end();
+    public void render(RenderQueue queue) {
+        Vector2 position = queue.getPosition(body);
+        queue.draw(Layer.Entity, texture, position.x - width / 2, position.y - height / 2, width,
+                height);
+    }
+
+    @Override
+    public void despawn() {
+        body.setActive(false);
     }
 
     @Override
@@ -3,9 +3,7 @@ package com.eldritch.hydrok.entity;
 import static com.eldritch.hydrok.util.Settings.BIT_SOLID;
 import static com.eldritch.hydrok.util.Settings.SCALE;
 
-import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
@@ -16,6 +14,8 @@ import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
 import com.eldritch.hydrok.player.Player;
+import com.eldritch.hydrok.util.RenderQueue;
+import com.eldritch.hydrok.util.RenderQueue.Layer;
 
 public class Springboard implements Entity {
     private static final float V = 5;
@@ -26,17 +26,13 @@ public class Springboard implements Entity {
     private final TextureRegion upTexture;
     private boolean sprung = false;
     
-    public Springboard(TextureRegion down, TextureRegion up, int x, int y, float offsetY, World world) {
+    public Springboard(TextureRegion down, TextureRegion up, World world) {
         downTexture = down;
         upTexture = up;
         
-        float h = downTexture.getRegionHeight() * SCALE * 0.5f;
-        float worldY = y + h;
-        worldY += offsetY / 2;
-        
         BodyDef bodyDef = new BodyDef();
         bodyDef.type = BodyType.StaticBody;
-        bodyDef.position.set(x, worldY);
+        bodyDef.active = false;
         body = world.createBody(bodyDef);
 
         float r = (Math.min(downTexture.getRegionWidth(), downTexture.getRegionHeight()) / 2) * SCALE;
@@ -60,24 +56,35 @@ public class Springboard implements Entity {
         circle.dispose();
     }
     
+    public void spawn(int x, int y, float offsetY) {
+        float h = downTexture.getRegionHeight() * SCALE * 0.5f;
+        float worldY = y + h;
+        worldY += offsetY / 2;
+        body.setTransform(x, worldY, 0);
+        body.setActive(true);
+        sprung = false;
+    }
+    
     @Override
     public void update(float delta) {
     }
     
     @Override
-    public void render(OrthogonalTiledMapRenderer renderer) {
+    public void render(RenderQueue queue) {
         TextureRegion texture = sprung ? upTexture : downTexture;
         
-        Vector2 position = body.getPosition();
-        Batch batch = renderer.getSpriteBatch();
-        batch.begin();
-        batch.draw(texture,
+        Vector2 position = queue.getPosition(body);
+        queue.draw(Layer.Entity, texture,
                 position.x - width / 2, position.y - height / 2, // position
                 width / 2, height / 2, // origin
                 width, height, // size
                 1, 1, // scale
                 0);
-        batch.end();
+    }
+
+    @Override
+    public void despawn() {
+        body.setActive(false);
     }
 
     @Override
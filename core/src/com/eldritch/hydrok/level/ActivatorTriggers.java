@@ -0,0 +1,91 @@
+package com.eldritch.hydrok.level;
+
+import static com.eldritch.hydrok.util.Settings.SCALE;
+
+import java.util.EnumMap;
+
+import com.badlogic.gdx.math.Vector2;
+import com.eldritch.hydrok.activator.PhaseActivator;
+import com.eldritch.hydrok.activator.TiledPhaseActivator.CellActivator;
+import com.eldritch.hydrok.player.Player;
+import com.eldritch.hydrok.player.Player.Phase;
+import com.eldritch.hydrok.util.PhysicsStepper.StepListener;
+
+/**
+ * Fires the activators that are stored as cells, such as clouds and water, when the player moves
+ * into them.  The cells under the player's bounds are looked up directly instead of giving every
+ * activator a sensor body.  An activator fires when the player first overlaps a cell of its
+ * phase, so running through a whole valley of water fires it once, like a single sensor would,
+ * and is deactivated once the player overlaps no cell of that phase.
+ *
+ * Checks run after every physics step rather than once a frame, so a fast player can't pass
+ * through a thin cell between frames.
+ */
+public class ActivatorTriggers implements StepListener {
+    private final ProceduralTiledMap map;
+    private final Player player;
+    private final EnumMap<Phase, PhaseActivator> activators =
+            new EnumMap<Phase, PhaseActivator>(Phase.class);
+    private final Phase[] phases = Phase.values();
+
+    // bit per phase ordinal, for the cells overlapped at the last update
+    private int touching = 0;
+
+    public ActivatorTriggers(ProceduralTiledMap map, Player player) {
+        this.map = map;
+        this.player = player;
+        for (Phase phase : phases) {
+            activators.put(phase, new CellActivator(phase));
+        }
+    }
+
+    @Override
+    public void stepped() {
+        Vector2 position = player.getPosition();
+        float left = position.x - player.getWidth() / 2;
+        float right = position.x + player.getWidth() / 2;
+        float bottom = position.y - player.getHeight() / 2;
+        float top = position.y + player.getHeight() / 2;
+
+        // tiles can overhang their cell, so start one cell further left and down
+        int touched = 0;
+        int layers = map.getLayers().getCount();
+        for (int y = (int) Math.floor(bottom) - 1; y <= (int) Math.floor(top); y++) {
+            for (int x = (int) Math.floor(left) - 1; x <= (int) Math.floor(right); x++) {
+                for (int index = 0; index < layers; index++) {
+                    ChunkLayer layer = map.getChunkLayerAt(x, y, index);
+                    if (layer == null) {
+                        continue;
+                    }
+
+                    int localX = x - layer.getWorldX();
+                    int localY = y - layer.getWorldY();
+                    Phase phase = layer.getPhase(localX, localY);
+                    if (phase == null) {
+                        continue;
+                    }
+
+                    float width = layer.getTile(localX, localY).getTextureRegion()
+                            .getRegionWidth() * SCALE;
+                    float height = layer.getWorldHeight(localX, localY);
+                    if (x < right && x + width > left && y < top && y + height > bottom) {
+                        touched |= 1 << phase.ordinal();
+                    }
+                }
+            }
+        }
+
+        int entered = touched & ~touching;
+        int exited = touching & ~touched;
+        touching = touched;
+        for (Phase phase : phases) {
+            int bit = 1 << phase.ordinal();
+            if ((exited & bit) != 0) {
+                activators.get(phase).deactivate(player);
+            }
+            if ((entered & bit) != 0) {
+                activators.get(phase).activate(player);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.eldritch.hydrok.level;
+
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.physics.box2d.ChainShape;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.eldritch.hydrok.level.WorldCell.Type;
+import com.eldritch.hydrok.util.ContactTag;
+
+/**
+ * Description of a Box2D body produced during chunk generation. Specs are plain data so they can
+ * be built off the render thread, and are only turned into bodies when the chunk is committed.
+ */
+public abstract class BodySpec {
+    private static final byte PLATFORM = 0;
+    private static final byte CHAIN = 1;
+    
+    public abstract Body create(World world);
+    
+    /**
+     * Writes the spec in the chunk store's binary format, tagged with its kind.
+     */
+    public abstract void write(ByteBuffer out, TileRegistry registry);
+    
+    public static BodySpec read(ByteBuffer in, TileRegistry registry) {
+        byte tag = in.get();
+        switch (tag) {
+            case PLATFORM:
+                return PlatformSpec.decode(in, registry);
+            case CHAIN:
+                return ChainSpec.decode(in);
+            default:
+                throw new GdxRuntimeException("Unknown body spec: " + tag);
+        }
+    }
+
+    /**
+     * Solid box for bridges, walls and ropes.  Chunk layers merge these into a single body when
+     * committed.
+     */
+    public static class PlatformSpec extends BodySpec {
+        private final TiledMapTile tile;
+        private final float worldX;
+        private final float worldY;
+        private final short maskBits;
+        private final float scaleX;
+        private final float scaleY;
+        private final ContactTag tag;
+
+        public PlatformSpec(TiledMapTile tile, float worldX, float worldY, short maskBits,
+                float scaleX, float scaleY) {
+            this(tile, worldX, worldY, maskBits, scaleX, scaleY, ContactTag.Ground);
+        }
+
+        public PlatformSpec(TiledMapTile tile, float worldX, float worldY, short maskBits,
+                float scaleX, float scaleY, ContactTag tag) {
+            this.tile = tile;
+            this.worldX = worldX;
+            this.worldY = worldY;
+            this.maskBits = maskBits;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            this.tag = tag;
+        }
+
+        @Override
+        public Body create(World world) {
+            Platform platform = new Platform();
+            addTo(platform);
+            return platform.create(world);
+        }
+        
+        /**
+         * Adds the box to a body shared with the rest of the chunk's static geometry.
+         */
+        public void addTo(Platform platform) {
+            platform.add(tile, worldX, worldY, maskBits, scaleX, scaleY, tag);
+        }
+        
+        @Override
+        public void write(ByteBuffer out, TileRegistry registry) {
+            out.put(PLATFORM);
+            out.putShort((short) registry.getId(tile));
+            out.putFloat(worldX);
+            out.putFloat(worldY);
+            out.putShort(maskBits);
+            out.putFloat(scaleX);
+            out.putFloat(scaleY);
+            out.put((byte) tag.ordinal());
+        }
+        
+        private static PlatformSpec decode(ByteBuffer in, TileRegistry registry) {
+            TiledMapTile tile = registry.get(in.getShort() & 0xFFFF);
+            float worldX = in.getFloat();
+            float worldY = in.getFloat();
+            short maskBits = in.getShort();
+            float scaleX = in.getFloat();
+            float scaleY = in.getFloat();
+            ContactTag tag = ContactTag.values()[in.get()];
+            return new PlatformSpec(tile, worldX, worldY, maskBits, scaleX, scaleY, tag);
+        }
+    }
+
+    /**
+     * Static chain running along the terrain surface.  The optional ghost vertices let the chain
+     * join up with its neighbors without the player catching on the seams.
+     */
+    public static class ChainSpec extends BodySpec {
+        private final Vector2[] vertices;
+        private final Vector2 prevVertex;
+        private final Vector2 nextVertex;
+
+        public ChainSpec(Vector2[] vertices) {
+            this(vertices, null, null);
+        }
+
+        public ChainSpec(Vector2[] vertices, Vector2 prevVertex, Vector2 nextVertex) {
+            this.vertices = vertices;
+            this.prevVertex = prevVertex;
+            this.nextVertex = nextVertex;
+        }
+
+        @Override
+        public Body create(World world) {
+            BodyDef bdef = new BodyDef();
+            bdef.type = BodyType.StaticBody;
+
+            ChainShape chain = new ChainShape();
+            chain.createChain(vertices);
+            if (prevVertex != null) {
+                chain.setPrevVertex(prevVertex);
+            }
+            if (nextVertex != null) {
+                chain.setNextVertex(nextVertex);
+            }
+
+            FixtureDef fd = new FixtureDef();
+            fd.shape = chain;
+            fd.filter.categoryBits = 0x0001;
+            fd.filter.maskBits = Type.Terrain.getMaskBits();
+
+            Body body = world.createBody(bdef);
+            Fixture fixture = body.createFixture(fd);
+            fixture.setUserData(ContactTag.Ground);
+            chain.dispose();
+
+            return body;
+        }
+        
+        @Override
+        public void write(ByteBuffer out, TileRegistry registry) {
+            out.put(CHAIN);
+            out.putShort((short) vertices.length);
+            for (Vector2 vertex : vertices) {
+                writeVertex(out, vertex);
+            }
+            out.put((byte) ((prevVertex != null ? 1 : 0) | (nextVertex != null ? 2 : 0)));
+            if (prevVertex != null) {
+                writeVertex(out, prevVertex);
+            }
+            if (nextVertex != null) {
+                writeVertex(out, nextVertex);
+            }
+        }
+        
+        private static ChainSpec decode(ByteBuffer in) {
+            Vector2[] vertices = new Vector2[in.getShort()];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = readVertex(in);
+            }
+            byte ghosts = in.get();
+            Vector2 prev = (ghosts & 1) != 0 ? readVertex(in) : null;
+            Vector2 next = (ghosts & 2) != 0 ? readVertex(in) : null;
+            return new ChainSpec(vertices, prev, next);
+        }
+        
+        private static void writeVertex(ByteBuffer out, Vector2 vertex) {
+            out.putFloat(vertex.x);
+            out.putFloat(vertex.y);
+        }
+        
+        private static Vector2 readVertex(ByteBuffer in) {
+            return new Vector2(in.getFloat(), in.getFloat());
+        }
+    }
+}
@@ -1,32 +1,189 @@
 package com.eldritch.hydrok.level;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.eldritch.hydrok.level.BodySpec.PlatformSpec;
+import com.eldritch.hydrok.level.WorldCell.Type;
+import com.eldritch.hydrok.player.Player.Phase;
+import com.eldritch.hydrok.util.HydrokContactListener;
 
+/**
+ * One layer of a chunk.  Cells are packed into a single int each rather than kept as objects:
+ * the tile id from the {@link TileRegistry} in the low 16 bits, then the cell type, the slope,
+ * the y-scale in hundredths and, for activators, the phase they switch the player to.
+ * {@link #getCell(int, int)} hands out a view over the packed data for code that wants a
+ * {@link WorldCell}.  The superclass is given no cells of its own, so the packed ints are all
+ * the layer holds.
+ *
+ * Which cells are set is also kept as one bitmask per row, so readers can jump over empty runs
+ * and skip empty layers entirely.  Layers can be at most 64 cells wide as a result.
+ */
 public class ChunkLayer extends TiledMapTileLayer {
+    private static final int TILE_MASK = 0xFFFF;
+    private static final int TYPE_SHIFT = 16;
+    private static final int TYPE_MASK = 0x3;
+    private static final int SLOPE_SHIFT = 18;
+    private static final int SLOPE_MASK = 0x3;
+    private static final int SCALE_SHIFT = 20;
+    private static final int SCALE_MASK = 0xFF;
+    // phases fit under the sign bit, which the chunk store needs kept clear
+    private static final int PHASE_SHIFT = 28;
+    private static final int PHASE_MASK = 0x7;
+    private static final Type[] TYPES = Type.values();
+    private static final Phase[] PHASES = Phase.values();
+    
     private final Set<Body> bodies = new HashSet<Body>();
+    private final Array<BodySpec> specs = new Array<BodySpec>();
+    private final Platform platform = new Platform();
     private final World world;
+    private final HydrokContactListener contactListener;
+    private final TileRegistry registry;
+    private final int[] cells;
+    private final long[] occupied;
+    private int count = 0;
+    private final int width;
+    private final int height;
+    private int worldX;
+    private int worldY;
     private final int z;
+    
+    // only one thread at a time works on a layer: the generator before commit, the renderer after
+    private final WorldCell view = new WorldCell();
     private int terrainLimit = -1;
+    private int committed = 0;
+    
+    // geometry the renderer has baked for this layer, rebuilt when any cell changes
+    private int cacheId = -1;
+    private boolean cacheDirty = true;
+    
+    // whether the layer's bodies take part in the simulation
+    private boolean active = true;
 
-    public ChunkLayer(World world, int width, int height, int tileWidth, int tileHeight, int z) {
-        super(width, height, tileWidth, tileHeight);
+    public ChunkLayer(World world, HydrokContactListener contactListener, TileRegistry registry,
+            int width, int height, int tileWidth, int tileHeight, int worldX, int worldY, int z) {
+        super(0, 0, tileWidth, tileHeight);
+        if (width > Long.SIZE) {
+            throw new IllegalArgumentException("Chunk layers can be at most 64 cells wide");
+        }
         this.world = world;
+        this.contactListener = contactListener;
+        this.registry = registry;
+        this.cells = new int[width * height];
+        this.occupied = new long[height];
+        this.width = width;
+        this.height = height;
+        this.worldX = worldX;
+        this.worldY = worldY;
         this.z = z;
     }
     
     public int getZ() {
         return z;
     }
+    
+    @Override
+    public int getWidth() {
+        return width;
+    }
+    
+    @Override
+    public int getHeight() {
+        return height;
+    }
+    
+    public int getWorldX() {
+        return worldX;
+    }
+    
+    public int getWorldY() {
+        return worldY;
+    }
 
     public void addBody(Body body) {
+        body.setActive(active);
         bodies.add(body);
     }
     
+    /**
+     * Queues a body to be created when the layer is committed.  Safe to call off the render
+     * thread, unlike {@link #addBody(Body)}.
+     */
+    public void addBodySpec(BodySpec spec) {
+        specs.add(spec);
+    }
+    
+    /**
+     * Creates all queued bodies in the world.  Must be called on the thread that steps the world.
+     * Platforms are merged into a single static body.  The specs are kept so the layer can be
+     * snapshotted and rebuilt later.
+     */
+    public void commit() {
+        for (int i = committed; i < specs.size; i++) {
+            BodySpec spec = specs.get(i);
+            if (spec instanceof PlatformSpec) {
+                ((PlatformSpec) spec).addTo(platform);
+            } else {
+                addBody(spec.create(world));
+            }
+        }
+        committed = specs.size;
+        
+        Body body = platform.create(world);
+        if (body != null) {
+            addBody(body);
+        }
+    }
+    
+    public boolean isActive() {
+        return active;
+    }
+    
+    /**
+     * Switches all of the layer's bodies in or out of the simulation.  Does nothing if they are
+     * already in that state.
+     */
+    public void setActive(boolean active) {
+        if (this.active == active) {
+            return;
+        }
+        this.active = active;
+        for (Body body : bodies) {
+            body.setActive(active);
+        }
+    }
+    
+    /**
+     * Copies out everything needed to rebuild this layer without regenerating it.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(cells.clone(), new Array<BodySpec>(specs), terrainLimit);
+    }
+    
+    /**
+     * Fills a freshly reset layer from a snapshot.  Its bodies are created on the next commit.
+     */
+    public void restore(Snapshot snapshot) {
+        System.arraycopy(snapshot.cells, 0, cells, 0, cells.length);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (cells[x + y * width] != 0) {
+                    occupy(x, y);
+                }
+            }
+        }
+        specs.addAll(snapshot.specs);
+        terrainLimit = snapshot.terrainLimit;
+        cacheDirty = true;
+    }
+    
     public void updateTerrainLimit(int y) {
         terrainLimit = Math.max(terrainLimit, y);
     }
@@ -35,6 +192,28 @@ public class ChunkLayer extends TiledMapTileLayer {
         return terrainLimit;
     }
     
+    /**
+     * Id of the renderer's baked geometry for this layer, or -1 if it has none.
+     */
+    public int getCacheId() {
+        return cacheId;
+    }
+    
+    public void setCacheId(int cacheId) {
+        this.cacheId = cacheId;
+    }
+    
+    /**
+     * Whether any cell has changed since the renderer last baked this layer.
+     */
+    public boolean isCacheDirty() {
+        return cacheDirty;
+    }
+    
+    public void setCacheDirty(boolean cacheDirty) {
+        this.cacheDirty = cacheDirty;
+    }
+    
     @Override
     public void setCell(int x, int y, Cell cell) {
         if (cell instanceof WorldCell) {
@@ -45,18 +224,253 @@ public class ChunkLayer extends TiledMapTileLayer {
     }
 
     public void setCell(int x, int y, WorldCell cell) {
-        super.setCell(x, y, cell);
+        setPacked(x, y, cell != null ? pack(cell.getTile(), cell.getType(), cell.getSlope(),
+                cell.getScaleY()) : 0);
+    }
+    
+    public void setCell(int x, int y, TiledMapTile tile, Type type) {
+        setCell(x, y, tile, type, 0, 1);
+    }
+    
+    public void setCell(int x, int y, TiledMapTile tile, Type type, int slope, float scaleY) {
+        setPacked(x, y, pack(tile, type, slope, scaleY));
+    }
+    
+    public void setTile(int x, int y, TiledMapTile tile) {
+        if (hasCell(x, y)) {
+            int index = x + y * width;
+            cells[index] = (cells[index] & ~TILE_MASK) | getId(tile);
+            cacheDirty = true;
+        }
+    }
+    
+    /**
+     * Sets an activator cell, which switches the player to the given phase on contact.
+     */
+    public void setActivator(int x, int y, TiledMapTile tile, Phase phase, float scaleY) {
+        setPacked(x, y, pack(tile, Type.Activator, 0, scaleY, phase));
+    }
+    
+    /**
+     * Packs a cell for this layer, for writes that have to be held back until commit.
+     */
+    public int pack(TiledMapTile tile, Type type, int slope, float scaleY) {
+        return pack(tile, type, slope, scaleY, null);
+    }
+    
+    public int pack(TiledMapTile tile, Type type, int slope, float scaleY, Phase phase) {
+        int scale = Math.min(Math.round(scaleY * 100), SCALE_MASK);
+        int phaseBits = phase != null ? phase.ordinal() + 1 : 0;
+        return getId(tile) | (type.ordinal() << TYPE_SHIFT)
+                | ((Integer.signum(slope) + 1) << SLOPE_SHIFT) | (scale << SCALE_SHIFT)
+                | (phaseBits << PHASE_SHIFT);
+    }
+    
+    public void setPacked(int x, int y, int packed) {
+        if (inBounds(x, y)) {
+            if (packed != 0) {
+                occupy(x, y);
+            } else {
+                vacate(x, y);
+            }
+            cells[x + y * width] = packed;
+            cacheDirty = true;
+        }
+    }
+    
+    public boolean hasCell(int x, int y) {
+        return inBounds(x, y) && cells[x + y * width] != 0;
+    }
+    
+    /**
+     * Bitmask of the cells set in row y, with bit x set for column x.
+     */
+    public long getOccupied(int y) {
+        return occupied[y];
+    }
+    
+    public int getCellCount() {
+        return count;
+    }
+    
+    public boolean isEmpty() {
+        return count == 0;
+    }
+    
+    /**
+     * The phase an activator cell switches the player to, or null if the cell isn't one.
+     */
+    public Phase getPhase(int x, int y) {
+        if (!hasCell(x, y)) {
+            return null;
+        }
+        int phase = (cells[x + y * width] >>> PHASE_SHIFT) & PHASE_MASK;
+        return phase > 0 ? PHASES[phase - 1] : null;
+    }
+    
+    /**
+     * The type of the cell, or null if there is no cell.
+     */
+    public Type getType(int x, int y) {
+        if (!hasCell(x, y)) {
+            return null;
+        }
+        return TYPES[(cells[x + y * width] >>> TYPE_SHIFT) & TYPE_MASK];
+    }
+    
+    public int getSlope(int x, int y) {
+        if (!hasCell(x, y)) {
+            return 0;
+        }
+        return ((cells[x + y * width] >>> SLOPE_SHIFT) & SLOPE_MASK) - 1;
+    }
+    
+    public TiledMapTile getTile(int x, int y) {
+        if (!hasCell(x, y)) {
+            return null;
+        }
+        return registry.get(cells[x + y * width] & TILE_MASK);
+    }
+    
+    public float getWorldHeight(int x, int y) {
+        if (!hasCell(x, y)) {
+            return 0;
+        }
+        return WorldCell.getWorldHeight(getTile(x, y), getScaleY(cells[x + y * width]));
     }
 
+    /**
+     * Returns a view of the cell that is reused by the next call, or null if there is no cell.
+     */
     @Override
     public WorldCell getCell(int x, int y) {
-        Cell cell = super.getCell(x, y);
-        return cell != null ? (WorldCell) cell : null;
+        if (!hasCell(x, y)) {
+            return null;
+        }
+        int packed = cells[x + y * width];
+        return view.set(registry.get(packed & TILE_MASK), x, y, worldX + x, worldY + y,
+                TYPES[(packed >>> TYPE_SHIFT) & TYPE_MASK],
+                ((packed >>> SLOPE_SHIFT) & SLOPE_MASK) - 1, getScaleY(packed));
+    }
+    
+    private void occupy(int x, int y) {
+        long bit = 1L << x;
+        if ((occupied[y] & bit) == 0) {
+            occupied[y] |= bit;
+            count++;
+        }
+    }
+    
+    private void vacate(int x, int y) {
+        long bit = 1L << x;
+        if ((occupied[y] & bit) != 0) {
+            occupied[y] &= ~bit;
+            count--;
+        }
+    }
+    
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+    
+    private int getId(TiledMapTile tile) {
+        if (tile == null) {
+            throw new IllegalArgumentException("Cells must have a tile");
+        }
+        return registry.getId(tile);
+    }
+    
+    private static float getScaleY(int packed) {
+        return ((packed >>> SCALE_SHIFT) & SCALE_MASK) / 100f;
     }
 
     public void destroy() {
         for (Body body : bodies) {
+            // the player may still be touching the ground we're taking away
+            contactListener.endContact(body);
             world.destroyBody(body);
         }
+        bodies.clear();
+    }
+    
+    /**
+     * Empties the layer and moves it to a new position so its chunk can be reused.  Bodies must
+     * already have been destroyed.
+     */
+    public void reset(int worldX, int worldY) {
+        Arrays.fill(cells, 0);
+        Arrays.fill(occupied, 0);
+        count = 0;
+        bodies.clear();
+        specs.clear();
+        terrainLimit = -1;
+        committed = 0;
+        cacheDirty = true;
+        active = true;
+        this.worldX = worldX;
+        this.worldY = worldY;
+    }
+    
+    /**
+     * Packed cells and body specs of a layer, detached from it.
+     */
+    public static class Snapshot {
+        private final int[] cells;
+        private final Array<BodySpec> specs;
+        private final int terrainLimit;
+        
+        private Snapshot(int[] cells, Array<BodySpec> specs, int terrainLimit) {
+            this.cells = cells;
+            this.specs = specs;
+            this.terrainLimit = terrainLimit;
+        }
+        
+        public void write(ByteBuffer out, TileRegistry registry) {
+            out.putInt(terrainLimit);
+            out.putInt(cells.length);
+            
+            // cells are never negative, so runs of empty cells are stored as their negated length
+            int run = 0;
+            for (int cell : cells) {
+                if (cell == 0) {
+                    run++;
+                    continue;
+                }
+                if (run > 0) {
+                    out.putInt(-run);
+                    run = 0;
+                }
+                out.putInt(cell);
+            }
+            if (run > 0) {
+                out.putInt(-run);
+            }
+            
+            out.putInt(specs.size);
+            for (BodySpec spec : specs) {
+                spec.write(out, registry);
+            }
+        }
+        
+        public static Snapshot read(ByteBuffer in, TileRegistry registry) {
+            int terrainLimit = in.getInt();
+            int[] cells = new int[in.getInt()];
+            int i = 0;
+            while (i < cells.length) {
+                int value = in.getInt();
+                if (value < 0) {
+                    i -= value;
+                } else {
+                    cells[i++] = value;
+                }
+            }
+            
+            int count = in.getInt();
+            Array<BodySpec> specs = new Array<BodySpec>(count);
+            for (int j = 0; j < count; j++) {
+                specs.add(BodySpec.read(in, registry));
+            }
+            return new Snapshot(cells, specs, terrainLimit);
+        }
     }
 }
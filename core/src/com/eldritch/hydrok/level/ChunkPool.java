@@ -0,0 +1,79 @@
+package com.eldritch.hydrok.level;
+
+import static com.eldritch.hydrok.util.Settings.TILE_HEIGHT;
+import static com.eldritch.hydrok.util.Settings.TILE_WIDTH;
+
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Pool;
+import com.eldritch.hydrok.util.HydrokContactListener;
+
+/**
+ * Recycles chunk maps, along with their layers and cell arrays, as the map scrolls.  Chunks are
+ * taken on the generator thread and given back on the render thread, so access is synchronized.
+ */
+public class ChunkPool extends Pool<TiledMap> {
+    private final World world;
+    private final HydrokContactListener contactListener;
+    private final TileRegistry registry;
+    private final int width;
+    private final int height;
+    private int hits = 0;
+    private int misses = 0;
+
+    public ChunkPool(World world, HydrokContactListener contactListener, TileRegistry registry,
+            int width, int height) {
+        this.world = world;
+        this.contactListener = contactListener;
+        this.registry = registry;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Returns an empty chunk with its layers placed at the given world position.
+     */
+    public synchronized TiledMap obtain(int worldX, int worldY) {
+        TiledMap map = obtain();
+        for (MapLayer layer : map.getLayers()) {
+            ((ChunkLayer) layer).reset(worldX, worldY);
+        }
+        return map;
+    }
+
+    @Override
+    public synchronized TiledMap obtain() {
+        if (getFree() > 0) {
+            hits++;
+        }
+        return super.obtain();
+    }
+
+    /**
+     * Takes back a chunk once its bodies have been destroyed.
+     */
+    @Override
+    public synchronized void free(TiledMap map) {
+        super.free(map);
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    @Override
+    protected TiledMap newObject() {
+        misses++;
+        TiledMap map = new TiledMap();
+        map.getLayers().add(new ChunkLayer(world, contactListener, registry, width, height,
+                TILE_WIDTH, TILE_HEIGHT, 0, 0, 0));
+        map.getLayers().add(new ChunkLayer(world, contactListener, registry, width, height,
+                TILE_WIDTH, TILE_HEIGHT, 0, 0, 1));
+        return map;
+    }
+}
@@ -0,0 +1,74 @@
+package com.eldritch.hydrok.level;
+
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Packed contents of an evicted chunk, kept so the chunk can be put back without generating it
+ * again.  Holds no bodies, entities or textures, only cells and the specs to rebuild the bodies
+ * and entities from.
+ */
+public class ChunkSnapshot {
+    private final Array<ChunkLayer.Snapshot> layers = new Array<ChunkLayer.Snapshot>();
+    private final Array<EntitySpec> entities = new Array<EntitySpec>();
+
+    /**
+     * Snapshots the chunk along with the specs its entities were spawned from.  The specs are
+     * copied, so the array can be reused afterwards.
+     */
+    public static ChunkSnapshot of(TiledMap chunk, Array<EntitySpec> entities) {
+        ChunkSnapshot snapshot = new ChunkSnapshot();
+        for (int i = 0; i < chunk.getLayers().getCount(); i++) {
+            snapshot.layers.add(((ChunkLayer) chunk.getLayers().get(i)).snapshot());
+        }
+        snapshot.entities.addAll(entities);
+        return snapshot;
+    }
+
+    public void write(ByteBuffer out, TileRegistry registry) {
+        out.put((byte) layers.size);
+        for (ChunkLayer.Snapshot layer : layers) {
+            layer.write(out, registry);
+        }
+        out.putShort((short) entities.size);
+        for (EntitySpec spec : entities) {
+            spec.write(out, registry);
+        }
+    }
+
+    public static ChunkSnapshot read(ByteBuffer in, TileRegistry registry) {
+        ChunkSnapshot snapshot = new ChunkSnapshot();
+        int count = in.get();
+        for (int i = 0; i < count; i++) {
+            snapshot.layers.add(ChunkLayer.Snapshot.read(in, registry));
+        }
+        int entities = in.getShort();
+        for (int i = 0; i < entities; i++) {
+            snapshot.entities.add(EntitySpec.read(in, registry));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Puts the cells and body specs back into the chunk's map, and its entity specs into the
+     * chunk to be spawned when it is committed.
+     */
+    public void restoreTo(GeneratedChunk chunk) {
+        TiledMap map = chunk.getMap();
+        for (int i = 0; i < layers.size; i++) {
+            ((ChunkLayer) map.getLayers().get(i)).restore(layers.get(i));
+        }
+        for (EntitySpec spec : entities) {
+            chunk.addEntity(spec);
+        }
+    }
+
+    /**
+     * Cache key for the chunk with the given world origin.
+     */
+    public static long key(int worldX, int worldY) {
+        return ((long) worldX << 32) | (worldY & 0xFFFFFFFFL);
+    }
+}
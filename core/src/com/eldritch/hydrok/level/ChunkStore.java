@@ -0,0 +1,144 @@
+package com.eldritch.hydrok.level;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.eldritch.hydrok.HydrokGame;
+
+/**
+ * Store of chunk snapshots in a memory-mapped scratch file, indexed by world origin.  Chunks that
+ * have left the grid are written here so that coming back to them is a page-in instead of a
+ * regeneration.  A chunk never changes once generated, so it is only written the first time.
+ *
+ * The file is mapped in fixed-size segments as it grows, up to {@link #MAX_SEGMENTS} of them.
+ * Mapped segments can't be released, so after that the store wraps around and reuses the oldest
+ * segment, forgetting the chunks in it, which are generated again if they are ever needed.  Tile ids in the data are only
+ * meaningful to the registry that wrote them, so the file is deleted when the store is disposed.
+ * If the file can't be created the store quietly holds nothing.
+ */
+public class ChunkStore implements Disposable {
+    private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final int MAX_SEGMENTS = 8;
+    private static final int MAX_ENTRY_SIZE = 64 * 1024;
+
+    private final TileRegistry registry;
+    private final Array<MappedByteBuffer> segments = new Array<MappedByteBuffer>();
+    private final Map<Long, Long> offsets = new HashMap<Long, Long>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_ENTRY_SIZE);
+    private File file = null;
+    private RandomAccessFile data = null;
+    private FileChannel channel = null;
+    private int current = -1;
+    private long end = 0;
+
+    public ChunkStore(TileRegistry registry) {
+        this.registry = registry;
+        try {
+            file = File.createTempFile("hydrok-chunks", ".bin");
+            file.deleteOnExit();
+            data = new RandomAccessFile(file, "rw");
+            channel = data.getChannel();
+        } catch (IOException ex) {
+            HydrokGame.error("Failed creating chunk store, chunks will be regenerated", ex);
+            close();
+        }
+    }
+
+    public synchronized void put(long key, ChunkSnapshot snapshot) {
+        if (channel == null || offsets.containsKey(key)) {
+            return;
+        }
+
+        scratch.clear();
+        snapshot.write(scratch, registry);
+        scratch.flip();
+        int length = scratch.remaining();
+
+        try {
+            // entries never straddle segments
+            if (current < 0 || end + 4 + length > (long) (current + 1) * SEGMENT_SIZE) {
+                current = (current + 1) % MAX_SEGMENTS;
+                end = (long) current * SEGMENT_SIZE;
+                if (current == segments.size) {
+                    segments.add(channel.map(MapMode.READ_WRITE, end, SEGMENT_SIZE));
+                } else {
+                    forget(current);
+                }
+            }
+
+            long offset = end;
+            ByteBuffer out = segments.get(current).duplicate();
+            out.position((int) (offset % SEGMENT_SIZE));
+            out.putInt(length);
+            out.put(scratch);
+
+            offsets.put(key, offset);
+            end = offset + 4 + length;
+        } catch (IOException ex) {
+            HydrokGame.error("Failed growing chunk store, no longer storing chunks", ex);
+            close();
+        }
+    }
+
+    /**
+     * Reads back the snapshot for the given key, or null if it was never stored.
+     */
+    public synchronized ChunkSnapshot get(long key) {
+        Long offset = offsets.get(key);
+        if (offset == null) {
+            return null;
+        }
+
+        ByteBuffer in = segments.get((int) (offset / SEGMENT_SIZE)).duplicate();
+        in.position((int) (offset % SEGMENT_SIZE));
+        int length = in.getInt();
+        in.limit(in.position() + length);
+        return ChunkSnapshot.read(in, registry);
+    }
+
+    @Override
+    public synchronized void dispose() {
+        close();
+        if (file != null) {
+            file.delete();
+            file = null;
+        }
+    }
+
+    /**
+     * Drops every entry in the segment, which is about to be written over.
+     */
+    private void forget(int segment) {
+        Iterator<Long> it = offsets.values().iterator();
+        while (it.hasNext()) {
+            if (it.next() / SEGMENT_SIZE == segment) {
+                it.remove();
+            }
+        }
+    }
+
+    private void close() {
+        offsets.clear();
+        segments.clear();
+        current = -1;
+        try {
+            if (data != null) {
+                data.close();
+            }
+        } catch (IOException ex) {
+            HydrokGame.error("Failed closing chunk store", ex);
+        }
+        data = null;
+        channel = null;
+    }
+}
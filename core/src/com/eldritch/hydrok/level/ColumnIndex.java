@@ -0,0 +1,144 @@
+package com.eldritch.hydrok.level;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Per-column summary of a chunk, built once after the terrain is laid down: the height and slope
+ * of the terrain surface in each column, and a bit mask of the cells decoration has taken.  Lets
+ * decoration answer "is this ground / is this free" with array reads and bit tests instead of
+ * walking cells across chunk boundaries.
+ *
+ * Columns are indexed in local chunk coordinates and cover one full chunk to either side, so
+ * lookups into the neighboring columns and valleys that start in the previous chunk still
+ * resolve.  Occupancy is only tracked within the chunk itself.
+ */
+public class ColumnIndex {
+    /** Surface height of a column with no known terrain. */
+    public static final int NONE = Integer.MIN_VALUE;
+
+    private final int width;
+    private final int height;
+    private final int[] surface;
+    private final int[] slope;
+    private final int[] occupied;
+
+    public ColumnIndex(int width, int height) {
+        if (height > Integer.SIZE - 1) {
+            throw new IllegalArgumentException("Chunk too tall for column masks: " + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.surface = new int[width * 3];
+        this.slope = new int[width * 3];
+        this.occupied = new int[width];
+        clear();
+    }
+
+    public void clear() {
+        Arrays.fill(surface, NONE);
+        Arrays.fill(slope, 0);
+        Arrays.fill(occupied, 0);
+    }
+
+    /**
+     * Fills in the surface from the terrain vertices.  There is at most one terrain cell per world
+     * column, so this is a single pass over the vertices.
+     */
+    public void build(Array<WorldCell> terrainCells, int worldX, int worldY) {
+        clear();
+        for (int i = 0; i < terrainCells.size; i++) {
+            WorldCell cell = terrainCells.get(i);
+            int x = cell.getWorldX() - worldX;
+            if (inRange(x)) {
+                surface[x + width] = cell.getWorldY() - worldY;
+                slope[x + width] = cell.getSlope();
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean inRange(int x) {
+        return x >= -width && x < width * 2;
+    }
+
+    /**
+     * Local height of the terrain in the given column, which may lie above or below the chunk,
+     * or {@link #NONE} if the column has no terrain.
+     */
+    public int getSurface(int x) {
+        return inRange(x) ? surface[x + width] : NONE;
+    }
+
+    public int getSlope(int x) {
+        return inRange(x) ? slope[x + width] : 0;
+    }
+
+    public boolean isTerrain(int x, int y) {
+        int s = getSurface(x);
+        return s != NONE && s == y;
+    }
+
+    public boolean isFiller(int x, int y) {
+        int s = getSurface(x);
+        return s != NONE && y < s;
+    }
+
+    public boolean isGround(int x, int y) {
+        int s = getSurface(x);
+        return s != NONE && y <= s;
+    }
+
+    /**
+     * First row in the chunk above the ground in the given column.  Returns the chunk height when
+     * the whole column is underground.
+     */
+    public int getFirstOpen(int x) {
+        int s = getSurface(x);
+        if (s == NONE) {
+            return 0;
+        }
+        return Math.min(Math.max(s + 1, 0), height);
+    }
+
+    public void occupy(int x, int y) {
+        occupied[x] |= 1 << y;
+    }
+
+    /**
+     * Bit mask of the cells decoration has taken in the given column of the chunk, with bit y
+     * set for row y.
+     */
+    public int getOccupied(int x) {
+        return occupied[x];
+    }
+
+    /**
+     * Bit mask of the cells in the given column of the chunk that are {@link #isEmpty empty},
+     * so callers can visit just those instead of testing every row.
+     */
+    public int getEmpty(int x) {
+        int open = (1 << height) - (1 << getFirstOpen(x));
+        return open & ~occupied[x];
+    }
+
+    /**
+     * True if the cell is within the chunk, above the ground and not taken.  Occupancy is only
+     * known for this chunk, so cells outside it report as taken, and the generator looks those
+     * up in the neighboring chunks instead.
+     */
+    public boolean isEmpty(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        return (occupied[x] & (1 << y)) == 0 && !isGround(x, y);
+    }
+}
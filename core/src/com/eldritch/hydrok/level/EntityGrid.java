@@ -0,0 +1,190 @@
+package com.eldritch.hydrok.level;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.eldritch.hydrok.entity.Entity;
+import com.eldritch.hydrok.util.RenderQueue;
+
+/**
+ * Live entities bucketed by the chunk they are in, laid out like the map's chunks.  A bucket is
+ * opened when its chunk is committed and closed when the chunk leaves the map, which despawns
+ * everything in it at once, back into an {@link EntityPool}.  Entities follow their position into
+ * other open buckets, and stay with the last one if they wander off the map.
+ * 
+ * Buckets can be switched off along with their chunk, which pauses their entities and takes
+ * their bodies out of the simulation.
+ *
+ * Each bucket also keeps the specs it spawned from, so an evicted chunk can take them along and
+ * spawn the same entities when it is restored.
+ */
+public class EntityGrid {
+    // sprites are drawn around the body position and can reach a little past it
+    private static final float MARGIN = 2;
+
+    private final Map<Long, Bucket> buckets = new HashMap<Long, Bucket>();
+    private final Array<Bucket> open = new Array<Bucket>();
+    private final Array<Bucket> free = new Array<Bucket>();
+    private final Array<Entity> moving = new Array<Entity>();
+    private final Array<EntitySpec> none = new Array<EntitySpec>();
+    private final EntityPool pool;
+    private final int chunkWidth;
+    private final int chunkHeight;
+
+    public EntityGrid(World world, int chunkWidth, int chunkHeight) {
+        this.pool = new EntityPool(world);
+        this.chunkWidth = chunkWidth;
+        this.chunkHeight = chunkHeight;
+    }
+
+    /**
+     * Starts tracking entities for the chunk at the given world origin.
+     */
+    public void open(int worldX, int worldY) {
+        long key = ChunkSnapshot.key(worldX, worldY);
+        if (buckets.containsKey(key)) {
+            return;
+        }
+
+        Bucket bucket = free.size > 0 ? free.pop() : new Bucket();
+        bucket.worldX = worldX;
+        bucket.worldY = worldY;
+        bucket.active = true;
+        buckets.put(key, bucket);
+        open.add(bucket);
+    }
+
+    /**
+     * Spawns an entity for the chunk at the given world origin, which must be open.
+     */
+    public void spawn(EntitySpec spec, int worldX, int worldY) {
+        Bucket bucket = buckets.get(ChunkSnapshot.key(worldX, worldY));
+        Entity entity = pool.obtain(spec);
+        entity.getBody().setActive(bucket.active);
+        bucket.entities.add(entity);
+        bucket.specs.add(spec);
+    }
+    
+    /**
+     * The specs spawned for the chunk at the given world origin.  The array is cleared when the
+     * chunk is closed.
+     */
+    public Array<EntitySpec> getSpecs(int worldX, int worldY) {
+        Bucket bucket = buckets.get(ChunkSnapshot.key(worldX, worldY));
+        return bucket != null ? bucket.specs : none;
+    }
+    
+    /**
+     * Switches the entities in the chunk at the given world origin in or out of the simulation.
+     */
+    public void setActive(int worldX, int worldY, boolean active) {
+        Bucket bucket = buckets.get(ChunkSnapshot.key(worldX, worldY));
+        if (bucket == null || bucket.active == active) {
+            return;
+        }
+        
+        bucket.active = active;
+        for (Entity entity : bucket.entities) {
+            entity.getBody().setActive(active);
+        }
+    }
+
+    /**
+     * Despawns every entity in the chunk at the given world origin.
+     */
+    public void close(int worldX, int worldY) {
+        Bucket bucket = buckets.remove(ChunkSnapshot.key(worldX, worldY));
+        if (bucket == null) {
+            return;
+        }
+
+        for (Entity entity : bucket.entities) {
+            pool.free(entity);
+        }
+        bucket.entities.clear();
+        bucket.specs.clear();
+        open.removeValue(bucket, true);
+        free.add(bucket);
+    }
+
+    public void update(float delta) {
+        for (int i = 0; i < open.size; i++) {
+            Bucket bucket = open.get(i);
+            if (!bucket.active) {
+                continue;
+            }
+            
+            for (int k = bucket.entities.size - 1; k >= 0; k--) {
+                Entity entity = bucket.entities.get(k);
+                entity.update(delta);
+
+                Vector2 position = entity.getPosition();
+                if (!bucket.contains(position) && find(position) != null) {
+                    // moved over to another open chunk
+                    moving.add(bucket.entities.removeIndex(k));
+                }
+            }
+        }
+
+        // placed afterwards so nothing is updated twice
+        for (Entity entity : moving) {
+            Bucket bucket = find(entity.getPosition());
+            entity.getBody().setActive(bucket.active);
+            bucket.entities.add(entity);
+        }
+        moving.clear();
+    }
+
+    /**
+     * Queues the entities that could be seen within the given view.
+     */
+    public void render(RenderQueue queue, Rectangle view) {
+        for (int i = 0; i < open.size; i++) {
+            Bucket bucket = open.get(i);
+            if (!bucket.overlaps(view)) {
+                continue;
+            }
+
+            for (int k = 0; k < bucket.entities.size; k++) {
+                Entity entity = bucket.entities.get(k);
+                Vector2 position = entity.getPosition();
+                if (position.x + MARGIN > view.x
+                        && position.x - MARGIN < view.x + view.width
+                        && position.y + MARGIN > view.y
+                        && position.y - MARGIN < view.y + view.height) {
+                    entity.render(queue);
+                }
+            }
+        }
+    }
+
+    private Bucket find(Vector2 position) {
+        int worldX = (int) Math.floor(position.x / chunkWidth) * chunkWidth;
+        int worldY = (int) Math.floor(position.y / chunkHeight) * chunkHeight;
+        return buckets.get(ChunkSnapshot.key(worldX, worldY));
+    }
+
+    private class Bucket {
+        private final Array<Entity> entities = new Array<Entity>();
+        private final Array<EntitySpec> specs = new Array<EntitySpec>();
+        private int worldX;
+        private int worldY;
+        private boolean active = true;
+
+        public boolean contains(Vector2 position) {
+            return position.x >= worldX && position.x < worldX + chunkWidth
+                    && position.y >= worldY && position.y < worldY + chunkHeight;
+        }
+
+        public boolean overlaps(Rectangle view) {
+            return worldX - MARGIN < view.x + view.width
+                    && worldX + chunkWidth + MARGIN > view.x
+                    && worldY - MARGIN < view.y + view.height
+                    && worldY + chunkHeight + MARGIN > view.y;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.eldritch.hydrok.level;
+
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.eldritch.hydrok.entity.Entity;
+import com.eldritch.hydrok.level.EntitySpec.Kind;
+
+/**
+ * Despawned entities kept for reuse, with a free list per kind.  Pooled entities keep their
+ * bodies, switched off, so spawning one again only moves its body back into place instead of
+ * creating a new one.
+ */
+public class EntityPool {
+    private final ObjectMap<Class<? extends Entity>, Array<Entity>> free =
+            new ObjectMap<Class<? extends Entity>, Array<Entity>>();
+    private final World world;
+
+    public EntityPool(World world) {
+        this.world = world;
+        for (Kind kind : Kind.values()) {
+            free.put(kind.getType(), new Array<Entity>());
+        }
+    }
+
+    /**
+     * Spawns the entity described by the spec.
+     */
+    public Entity obtain(EntitySpec spec) {
+        Array<Entity> entities = free.get(spec.getKind().getType());
+        Entity entity = entities.size > 0 ? entities.pop() : spec.create(world);
+        spec.spawn(entity);
+        return entity;
+    }
+
+    /**
+     * Despawns the entity and keeps it for the next spawn of its kind.
+     */
+    public void free(Entity entity) {
+        entity.despawn();
+        free.get(entity.getClass()).add(entity);
+    }
+}
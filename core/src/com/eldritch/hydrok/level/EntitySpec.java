@@ -0,0 +1,158 @@
+package com.eldritch.hydrok.level;
+
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.physics.box2d.World;
+import com.eldritch.hydrok.entity.Barnacle;
+import com.eldritch.hydrok.entity.Blower;
+import com.eldritch.hydrok.entity.Entity;
+import com.eldritch.hydrok.entity.Fly;
+import com.eldritch.hydrok.entity.Ladybug;
+import com.eldritch.hydrok.entity.Springboard;
+
+/**
+ * Where and what to spawn for a single entity. Entities load textures and create bodies, so the
+ * generator only records a spec and the entity itself is spawned when the chunk is committed,
+ * reusing a pooled one of the same kind where possible.  Specs are kept with evicted chunks, so
+ * the same entities come back when the chunk is restored.
+ */
+public class EntitySpec {
+    private final Kind kind;
+    private final int x;
+    private final int y;
+    private float offsetY = 0;
+    private boolean up = false;
+    private TiledMapTile downTile = null;
+    private TiledMapTile upTile = null;
+
+    public EntitySpec(Kind kind, int x, int y) {
+        this.kind = kind;
+        this.x = x;
+        this.y = y;
+    }
+
+    public static EntitySpec barnacle(int x, int y, float offsetY, boolean up) {
+        EntitySpec spec = new EntitySpec(Kind.Barnacle, x, y);
+        spec.offsetY = offsetY;
+        spec.up = up;
+        return spec;
+    }
+
+    public static EntitySpec springboard(TiledMapTile down, TiledMapTile up, int x, int y) {
+        EntitySpec spec = new EntitySpec(Kind.Springboard, x, y);
+        spec.downTile = down;
+        spec.upTile = up;
+        return spec;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Builds a new entity of this kind, switched off until it is spawned.
+     */
+    public Entity create(World world) {
+        switch (kind) {
+            case Fly:
+                return new Fly(world);
+            case Ladybug:
+                return new Ladybug(world);
+            case Blower:
+                return new Blower(world);
+            case Barnacle:
+                return new Barnacle(world);
+            case Springboard:
+                return new Springboard(downTile.getTextureRegion(), upTile.getTextureRegion(),
+                        world);
+            default:
+                throw new IllegalStateException("Unknown entity kind: " + kind);
+        }
+    }
+
+    /**
+     * Moves an entity of this kind, new or pooled, into place and switches it on.
+     */
+    public void spawn(Entity entity) {
+        switch (kind) {
+            case Fly:
+                ((Fly) entity).spawn(x, y);
+                break;
+            case Ladybug:
+                ((Ladybug) entity).spawn(x, y);
+                break;
+            case Blower:
+                ((Blower) entity).spawn(x, y);
+                break;
+            case Barnacle:
+                ((Barnacle) entity).spawn(x, y, offsetY, up);
+                break;
+            case Springboard:
+                ((Springboard) entity).spawn(x, y, 0);
+                break;
+            default:
+                throw new IllegalStateException("Unknown entity kind: " + kind);
+        }
+    }
+
+    /**
+     * Writes the spec in the chunk store's binary format.
+     */
+    public void write(ByteBuffer out, TileRegistry registry) {
+        out.put((byte) kind.ordinal());
+        out.putInt(x);
+        out.putInt(y);
+        switch (kind) {
+            case Barnacle:
+                out.putFloat(offsetY);
+                out.put((byte) (up ? 1 : 0));
+                break;
+            case Springboard:
+                out.putShort((short) registry.getId(downTile));
+                out.putShort((short) registry.getId(upTile));
+                break;
+            default:
+                break;
+        }
+    }
+
+    public static EntitySpec read(ByteBuffer in, TileRegistry registry) {
+        Kind kind = Kind.values()[in.get()];
+        int x = in.getInt();
+        int y = in.getInt();
+        switch (kind) {
+            case Barnacle:
+                return barnacle(x, y, in.getFloat(), in.get() != 0);
+            case Springboard:
+                TiledMapTile down = registry.get(in.getShort() & 0xFFFF);
+                TiledMapTile up = registry.get(in.getShort() & 0xFFFF);
+                return springboard(down, up, x, y);
+            default:
+                return new EntitySpec(kind, x, y);
+        }
+    }
+
+    public enum Kind {
+        Fly(Fly.class), Ladybug(Ladybug.class), Blower(Blower.class), Barnacle(Barnacle.class),
+        Springboard(Springboard.class);
+        
+        private final Class<? extends Entity> type;
+        
+        private Kind(Class<? extends Entity> type) {
+            this.type = type;
+        }
+        
+        public Class<? extends Entity> getType() {
+            return type;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.eldritch.hydrok.level;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Output of the data phase of chunk generation. The tile grid is complete, but every body and
+ * entity is still a spec, and writes that spill into neighboring chunks are held back so that
+ * nothing visible to the render thread is touched until {@link MapChunkGenerator#commit}.
+ */
+public class GeneratedChunk {
+    private final TiledMap map;
+    private final int chunkI;
+    private final int chunkJ;
+    private final int worldX;
+    private final int worldY;
+    private final Array<EntitySpec> entities = new Array<EntitySpec>();
+    private final Array<DeferredCell> neighborCells = new Array<DeferredCell>();
+
+    public GeneratedChunk(TiledMap map, int chunkI, int chunkJ, int worldX, int worldY) {
+        this.map = map;
+        this.chunkI = chunkI;
+        this.chunkJ = chunkJ;
+        this.worldX = worldX;
+        this.worldY = worldY;
+    }
+
+    public TiledMap getMap() {
+        return map;
+    }
+
+    public int getChunkI() {
+        return chunkI;
+    }
+
+    public int getChunkJ() {
+        return chunkJ;
+    }
+
+    public int getWorldX() {
+        return worldX;
+    }
+
+    public int getWorldY() {
+        return worldY;
+    }
+
+    public void addEntity(EntitySpec spec) {
+        entities.add(spec);
+    }
+
+    public Array<EntitySpec> getEntities() {
+        return entities;
+    }
+
+    public void addNeighborCell(ChunkLayer layer, int x, int y, int packed) {
+        neighborCells.add(new DeferredCell(layer, x, y, packed));
+    }
+
+    public void applyNeighborCells() {
+        for (DeferredCell deferred : neighborCells) {
+            deferred.layer.setPacked(deferred.x, deferred.y, deferred.packed);
+        }
+        neighborCells.clear();
+    }
+
+    private static class DeferredCell {
+        private final ChunkLayer layer;
+        private final int x;
+        private final int y;
+        private final int packed;
+
+        public DeferredCell(ChunkLayer layer, int x, int y, int packed) {
+            this.layer = layer;
+            this.x = x;
+            this.y = y;
+            this.packed = packed;
+        }
+    }
+}
@@ -4,43 +4,27 @@ import static com.eldritch.hydrok.util.Settings.ALL_BITS;
 import static com.eldritch.hydrok.util.Settings.BIT_LIQUID;
 import static com.eldritch.hydrok.util.Settings.BIT_SOLID;
 import static com.eldritch.hydrok.util.Settings.CHUNKS;
-import static com.eldritch.hydrok.util.Settings.SCALE;
-import static com.eldritch.hydrok.util.Settings.TILE_HEIGHT;
-import static com.eldritch.hydrok.util.Settings.TILE_WIDTH;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.ExecutionException;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.badlogic.gdx.maps.MapLayer;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.physics.box2d.BodyDef;
-import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
-import com.badlogic.gdx.physics.box2d.ChainShape;
-import com.badlogic.gdx.physics.box2d.Fixture;
-import com.badlogic.gdx.physics.box2d.FixtureDef;
-import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
 import com.eldritch.hydrok.HydrokGame;
-import com.eldritch.hydrok.activator.PhaseActivator;
-import com.eldritch.hydrok.activator.TiledPhaseActivator.GasActivator;
-import com.eldritch.hydrok.activator.TiledPhaseActivator.LiquidActivator;
-import com.eldritch.hydrok.activator.TiledPhaseActivator.PlasmaActivator;
-import com.eldritch.hydrok.activator.TiledPhaseActivator.SolidActivator;
-import com.eldritch.hydrok.entity.Barnacle;
-import com.eldritch.hydrok.entity.Blower;
-import com.eldritch.hydrok.entity.Fly;
-import com.eldritch.hydrok.entity.Entity;
-import com.eldritch.hydrok.entity.Ladybug;
-import com.eldritch.hydrok.entity.Springboard;
+import com.eldritch.hydrok.level.BodySpec.ChainSpec;
+import com.eldritch.hydrok.level.BodySpec.PlatformSpec;
+import com.eldritch.hydrok.level.EntitySpec.Kind;
+import com.eldritch.hydrok.level.Randomizer.Purpose;
 import com.eldritch.hydrok.level.WorldCell.Type;
+import com.eldritch.hydrok.player.Player.Phase;
+import com.eldritch.hydrok.util.AssetRegistry;
+import com.eldritch.hydrok.util.ContactTag;
 import com.eldritch.hydrok.util.HydrokContactListener;
 import com.eldritch.hydrok.util.Settings;
 import com.eldritch.hydrok.util.TilePoint;
@@ -49,18 +33,17 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 
 public class MapChunkGenerator {
-    private final TextureAtlas atlas = new TextureAtlas(
-            Gdx.files.internal("image-atlases/environment.atlas"));
+    private static final String ATLAS = "image-atlases/environment.atlas";
+    private final AssetRegistry assets;
+    private final TextureAtlas atlas;
 
     private final Randomizer rand;
-    private final List<Entity> newEntities = new ArrayList<Entity>();
     private final TiledMap[][] chunks;
-    private final HydrokContactListener contactListener;
-    private final World world;
     private final int width;
     private final int height;
-    
-    private Body chainBody = null;
+    private final ColumnIndex index;
+    private final TileRegistry registry = new TileRegistry();
+    private final ChunkPool pool;
     
     protected final Array<WorldCell> terrainCells = new Array<WorldCell>();
     protected WorldCell lastTerrain = null;
@@ -76,13 +59,16 @@ public class MapChunkGenerator {
                 }
             });
 
-    public MapChunkGenerator(HydrokContactListener contactListener, TiledMap[][] chunks, World world, Randomizer rand, int width, int height) {
+    public MapChunkGenerator(HydrokContactListener contactListener, TiledMap[][] chunks,
+            World world, Randomizer rand, AssetRegistry assets, int width, int height) {
+        this.assets = assets;
+        this.atlas = assets.acquire(ATLAS, TextureAtlas.class);
         this.chunks = chunks;
         this.rand = rand;
-        this.contactListener = contactListener;
-        this.world = world;
         this.width = width;
         this.height = height;
+        this.index = new ColumnIndex(width, height);
+        this.pool = new ChunkPool(world, contactListener, registry, width, height);
     }
 
     public void removeVertices(int minRemaining) {
@@ -93,372 +79,446 @@ public class MapChunkGenerator {
         terrainCells.removeRange(0, count - 1);
     }
     
-    public List<Entity> getNewEntities() {
-        return newEntities;
+    public TileRegistry getTileRegistry() {
+        return registry;
+    }
+    
+    public ChunkPool getChunkPool() {
+        return pool;
+    }
+    
+    /**
+     * Gives back the tile atlas.  Tiles already handed out must not be drawn afterwards.
+     */
+    public void dispose() {
+        assets.release(ATLAS);
     }
 
-    public TiledMap generate(int chunkI, int chunkJ, int worldX, int worldY) {
+    /**
+     * Data phase of chunk generation.  Touches neither the world nor any chunk visible to the
+     * renderer, so it may run on a worker thread.  Generation state is sequential, so calls must
+     * still be made one at a time and in order.
+     */
+    public GeneratedChunk generate(int chunkI, int chunkJ, int worldX, int worldY) {
         rand.update(worldX);
         
-        TiledMap map = new TiledMap();
-        ChunkLayer background = new ChunkLayer(world, width, height, TILE_WIDTH, TILE_HEIGHT, 0);
-        ChunkLayer terrain = new ChunkLayer(world, width, height, TILE_WIDTH, TILE_HEIGHT, 1);
+        TiledMap map = pool.obtain(worldX, worldY);
+        ChunkLayer background = (ChunkLayer) map.getLayers().get(0);
+        ChunkLayer terrain = (ChunkLayer) map.getLayers().get(1);
+        GeneratedChunk chunk = new GeneratedChunk(map, chunkI, chunkJ, worldX, worldY);
 
         generateTerrain(terrain, chunkI, chunkJ, worldX, worldY);
-        generateBackground(terrain, chunkI, chunkJ, worldX, worldY);
-        
-        if (worldX > Settings.CHUNK_WIDTH * 2) {
-            generateWater(background, terrain, chunkI, chunkJ, worldX, worldY);
-            generateObstacles(terrain, chunkI, chunkJ, worldX, worldY);
-            generateActivators(terrain, chunkI, chunkJ, worldX, worldY);
-            generateEntities(terrain, chunkI, chunkJ, worldX, worldY);
-        }
-
-        map.getLayers().add(background);
-        map.getLayers().add(terrain);
+        index.build(terrainCells, worldX, worldY);
+        decorate(chunk, background, terrain, chunkI, chunkJ, worldX, worldY);
 
-        return map;
+        return chunk;
     }
     
-    private void generateEntities(ChunkLayer layer, int chunkI, int chunkJ, int minX, int minY) {
-        for (int x = 0; x < layer.getWidth(); x++) {
-            for (int y = 0; y < layer.getHeight(); y++) {
-                if (!isNullOrEmpty(layer.getCell(x, y))) {
-                    // already has cell
-                    continue;
-                }
-                
-                int worldX = x + minX;
-                int worldY = y + minY;
-                
-                WorldCell down = getCell(layer, x, y - 1, chunkI, chunkJ);
-                WorldCell left = getCell(layer, x - 1, y - 1, chunkI, chunkJ);
-                WorldCell right = getCell(layer, x + 1, y - 1, chunkI, chunkJ);
-                
-                if (rand.flip(0.025)) {
-                    // fly
-                    newEntities.add(new Fly(worldX, worldY, world));
-                } else if (rand.flip(0.01)) {
-                    // ladybug
-                    newEntities.add(new Ladybug(worldX, worldY, world));
-                }
-                
-                if (y > layer.getTerrainLimit() && rand.flip(0.01)) {
-                    // blower
-                    newEntities.add(new Blower(worldX, worldY, world));
-                } else if (isPlatform(down) && isPlatform(left) && isPlatform(right) && rand.flip(0.5)) {
-                    // barnacle
-                    boolean up = rand.fairFlip(0.5);
-                    newEntities.add(new Barnacle(worldX, worldY, down.getWorldHeight(), up, world));
-                } else if (isTerrain(down) && down.getSlope() == 0) {
-                    if (isTerrain(left) && isTerrain(right) && rand.flip(0.5)) {
-                        // springboard
-                        TiledMapTile downTile = getTile("object/spring-down");
-                        TiledMapTile upTile = getTile("object/spring-up");
-                        Springboard spring = new Springboard(
-                                downTile.getTextureRegion(), upTile.getTextureRegion(),
-                                worldX, worldY, 0, world);
-                        newEntities.add(spring);
-                    }
+    /**
+     * True if a chunk starting at the given x can be restored from a snapshot.  Restoring doesn't
+     * advance the terrain, so it has to have been generated through the whole chunk already.
+     */
+    public boolean canRestore(int worldX) {
+        return lastTerrain != null && lastTerrain.getWorldX() >= worldX + width - 1;
+    }
+    
+    /**
+     * Stands in for {@link #generate} when the chunk was seen before.  The cells and bodies come
+     * back as they were, and the entities are spawned again from the specs they were generated
+     * with.
+     */
+    public GeneratedChunk restore(ChunkSnapshot snapshot, int chunkI, int chunkJ, int worldX,
+            int worldY) {
+        TiledMap map = pool.obtain(worldX, worldY);
+        GeneratedChunk chunk = new GeneratedChunk(map, chunkI, chunkJ, worldX, worldY);
+        snapshot.restoreTo(chunk);
+        return chunk;
+    }
+    
+    /**
+     * Commit phase of chunk generation.  Creates the bodies described by the chunk and applies
+     * any cells it placed in neighboring chunks.  Must be called on the thread that steps the
+     * world.  Entities are spawned by the map, which pools them.
+     */
+    public void commit(GeneratedChunk chunk) {
+        for (MapLayer layer : chunk.getMap().getLayers()) {
+            ((ChunkLayer) layer).commit();
+        }
+        chunk.applyNeighborCells();
+    }
+    
+    /**
+     * Decorates the chunk in a single sweep over its columns.  Obstacles only ever extend right
+     * or down from where they start, so once the sweep has finished column x, column x - 1 and
+     * both of its neighbors are final and activators and entities can be placed in it.
+     */
+    private void decorate(GeneratedChunk chunk, ChunkLayer background, ChunkLayer terrain,
+            int chunkI, int chunkJ, int worldX, int worldY) {
+        boolean populated = worldX > Settings.CHUNK_WIDTH * 2;
+        for (int x = 0; x <= width; x++) {
+            if (x < width) {
+                generateBackground(terrain, x, worldX, worldY);
+                if (populated) {
+                    generateWater(chunk, background, x, chunkI, chunkJ, worldX, worldY);
+                    generateObstacles(terrain, x, chunkI, chunkJ, worldX, worldY);
                 }
             }
+            if (populated && x > 0) {
+                generateActivators(terrain, x - 1, chunkI, chunkJ, worldX, worldY);
+                generateEntities(chunk, terrain, x - 1, chunkI, chunkJ, worldX, worldY);
+            }
         }
     }
 
-    private void generateActivators(ChunkLayer layer, int chunkI, int chunkJ, int worldX, int worldY) {
-        for (int x = 0; x < layer.getWidth(); x++) {
-            for (int y = 0; y < layer.getHeight(); y++) {
-                if (!isNullOrEmpty(layer.getCell(x, y))) {
-                    // already has cell
-                    continue;
-                }
+    /**
+     * Places the column's entities.  Flies, ladybugs and blowers can turn up in any empty cell
+     * but rarely do, so they jump from one hit to the next off a single seek.  Barnacles and
+     * springboards are only tried on the cells right above a platform or flat ground, and not
+     * where a blower went, which takes the cell first.
+     */
+    private void generateEntities(GeneratedChunk chunk, ChunkLayer layer, int x, int chunkI,
+            int chunkJ, int minX, int minY) {
+        int worldX = x + minX;
+
+        // a fly, or failing that a ladybug
+        rand.seek(worldX, minY, Purpose.Entity);
+        double fly = 0.025 * rand.getDistanceBias();
+        double critter = fly + (1 - fly) * 0.01 * rand.getDistanceBias();
+        int first = index.getFirstOpen(x);
+        for (int y = nextRow(first - 1, critter); y < height; y = nextRow(y, critter)) {
+            if (index.isEmpty(x, y)) {
+                Kind kind = rand.fairFlip(fly / critter) ? Kind.Fly : Kind.Ladybug;
+                chunk.addEntity(new EntitySpec(kind, worldX, y + minY));
+            }
+        }
 
-                WorldCell down = getCell(layer, x, y - 1, chunkI, chunkJ);
-                if (down == WorldCell.EMPTY) {
-                    if (rand.fairFlip(0.025)) {
-                        if (rand.fairFlip(0.7)) {
-                            TiledMapTile tile = getTile("object/storm-cloud2");
-                            Body body = createBody(tile, world, x + worldX, y + worldY);
-                            PhaseActivator a = new SolidActivator(tile, x + worldX, y + worldY, body);
-                            WorldCell cell = new WorldCell(tile, x, y, a.getX(), a.getY(),
-                                    Type.Activator);
-                            layer.setCell(x, y, cell);
-                            layer.addBody(body);
-                        } else if (rand.fairFlip(0.95)) {
-                            TiledMapTile tile = getTile("object/cloud2");
-                            Body body = createBody(tile, world, x + worldX, y + worldY);
-                            PhaseActivator a = new LiquidActivator(tile, x + worldX, y + worldY, body);
-                            WorldCell cell = new WorldCell(tile, x, y, a.getX(), a.getY(),
-                                    Type.Activator);
-                            layer.setCell(x, y, cell);
-                            layer.addBody(body);
-                        } else {
-                            TiledMapTile tile = getTile("object/lightning-cloud2");
-                            Body body = createBody(tile, world, x + worldX, y + worldY);
-                            PhaseActivator a = new PlasmaActivator(tile, x + worldX, y + worldY, body);
-                            WorldCell cell = new WorldCell(tile, x, y, a.getX(), a.getY(),
-                                    Type.Activator);
-                            layer.setCell(x, y, cell);
-                            layer.addBody(body);
-                        }
-                    }
-                }
+        // blowers only above the terrain
+        int blown = 0;
+        double blower = 0.01 * rand.getDistanceBias();
+        first = Math.max(first, layer.getTerrainLimit() + 1);
+        for (int y = nextRow(first - 1, blower); y < height; y = nextRow(y, blower)) {
+            if (index.isEmpty(x, y)) {
+                chunk.addEntity(new EntitySpec(Kind.Blower, worldX, y + minY));
+                blown |= 1 << y;
             }
         }
-    }
 
-    private static Body createBody(TiledMapTile tile, World world, int x, int y) {
-        return createBody(tile, world, x, y, 1);
+        int empty = index.getEmpty(x) & ~blown;
+        int perches = (index.getOccupied(x) << 1) & empty;
+        int ground = index.getSurface(x) + 1;
+        if (ground >= 0 && ground < height) {
+            perches |= (1 << ground) & empty;
+        }
+        if (isPlatform(layer, x, -1, chunkI, chunkJ)) {
+            // on a platform in the chunk below
+            perches |= 1 & empty;
+        }
+        for (int rows = perches; rows != 0; rows &= rows - 1) {
+            int y = Integer.numberOfTrailingZeros(rows);
+            int worldY = y + minY;
+            rand.seek(worldX, worldY, Purpose.Perch);
+            if (isPlatform(layer, x, y - 1, chunkI, chunkJ)
+                    && isPlatform(layer, x - 1, y - 1, chunkI, chunkJ)
+                    && isPlatform(layer, x + 1, y - 1, chunkI, chunkJ) && rand.flip(0.5)) {
+                // barnacle
+                boolean up = rand.fairFlip(0.5);
+                ChunkLayer platform = getLayerAt(layer, x, y - 1, chunkI, chunkJ);
+                float offsetY = platform.getWorldHeight(x, wrap(y - 1, height));
+                chunk.addEntity(EntitySpec.barnacle(worldX, worldY, offsetY, up));
+            } else if (index.isTerrain(x, y - 1) && index.getSlope(x) == 0
+                    && index.isTerrain(x - 1, y - 1) && index.isTerrain(x + 1, y - 1)
+                    && rand.flip(0.5)) {
+                // springboard
+                TiledMapTile downTile = getTile("object/spring-down");
+                TiledMapTile upTile = getTile("object/spring-up");
+                chunk.addEntity(EntitySpec.springboard(downTile, upTile, worldX, worldY));
+            }
+        }
     }
 
-    private static Body createBody(TiledMapTile tile, World world, int x, int y, float heightScale) {
-        float halfWidth = (tile.getTextureRegion().getRegionWidth() / 2.0f) * SCALE;
-        float halfHeight = (heightScale * tile.getTextureRegion().getRegionHeight() / 2.0f) * SCALE;
-
-        // create our body definition
-        BodyDef groundBodyDef = new BodyDef();
-        groundBodyDef.position.set(new Vector2(x + halfWidth, y + halfHeight));
-        Body groundBody = world.createBody(groundBodyDef);
-
-        // create a polygon shape
-        PolygonShape groundBox = new PolygonShape();
-        groundBox.setAsBox(halfWidth, halfHeight);
+    /**
+     * Places the column's clouds, which float in an empty cell over another empty one.  They
+     * are rare, so the sweep jumps from one hit to the next off a single seek for the column.
+     */
+    private void generateActivators(ChunkLayer layer, int x, int chunkI, int chunkJ, int worldX,
+            int worldY) {
+        double odds = 0.025;
+        rand.seek(x + worldX, worldY, Purpose.Activator);
+        for (int y = nextRow(index.getFirstOpen(x) - 1, odds); y < height;
+                y = nextRow(y, odds)) {
+            if (!index.isEmpty(x, y) || !isEmpty(layer, x, y - 1, chunkI, chunkJ)) {
+                // already has cell, or nothing below to float over
+                continue;
+            }
 
-        // create the fixture
-        FixtureDef def = new FixtureDef();
-        def.shape = groundBox;
-        def.isSensor = true;
-        def.filter.categoryBits = 0x0001;
-        def.filter.maskBits = ALL_BITS;
-        groundBody.createFixture(def);
+            TiledMapTile tile;
+            Phase phase;
+            if (rand.fairFlip(0.7)) {
+                tile = getTile("object/storm-cloud2");
+                phase = Phase.Solid;
+            } else if (rand.fairFlip(0.95)) {
+                tile = getTile("object/cloud2");
+                phase = Phase.Liquid;
+            } else {
+                tile = getTile("object/lightning-cloud2");
+                phase = Phase.Plasma;
+            }
 
-        // clean up
-        groundBox.dispose();
+            layer.setActivator(x, y, tile, phase, 1);
+            index.occupy(x, y);
+        }
+    }
 
-        return groundBody;
+    /**
+     * The row of the next hit after row y, for flips at the given odds, or the chunk height if
+     * there are no more in the chunk.
+     */
+    private int nextRow(int y, double prob) {
+        return (int) Math.min((long) y + 1 + rand.fairSkip(prob), height);
     }
 
-    private void generateWater(ChunkLayer layer, ChunkLayer terrain, int chunkI, int chunkJ,
-            int worldX, int worldY) {
-        for (int x = 0; x < layer.getWidth(); x++) {
-            for (int y = 0; y < layer.getHeight(); y++) {
-                if (!isNullOrEmpty(layer.getCell(x, y))) {
-                    // already has cell
-                    continue;
-                }
+    /**
+     * Looks for the far side of a valley at the surface of the given column, and fills the
+     * valley with water working back to the left.  Valleys that started in the previous chunk
+     * spill their cells into it.
+     */
+    private void generateWater(GeneratedChunk chunk, ChunkLayer layer, int x, int chunkI,
+            int chunkJ, int worldX, int worldY) {
+        int y = index.getSurface(x);
+        if (y < 0 || y >= layer.getHeight() || layer.hasCell(x, y)) {
+            // no surface in this chunk, or already has cell
+            return;
+        }
+        if (!index.isTerrain(x - 1, y - 1) || index.getSlope(x - 1) != 0) {
+            // not the start of a valley
+            return;
+        }
 
-                WorldCell current = getCell(terrain, x, y, chunkI, chunkJ);
-                WorldCell down = getCell(terrain, x - 1, y - 1, chunkI, chunkJ);
-                if (isTerrain(current) && isTerrain(down) && down.getSlope() == 0) {
-                    // start of a valley, fill in water working back
-                    Array<TilePoint> points = new Array<TilePoint>();
-                    int localX = current.getLocalX();
-                    int localY = current.getLocalY();
-                    boolean finished = false;
-                    while ((isTerrain(down) || isFiller(down)) && !finished) {
-                        points.add(TilePoint.of(localX, localY));
-
-                        // set to new current
-                        current = getCell(terrain, localX, localY, chunkI, chunkJ);
-                        if (!isNullOrEmpty(current) && current.getSlope() < 0) {
-                            // found the other end
-                            finished = true;
-                        }
-
-                        // update down cell
-                        localX -= 1;
-                        down = getCell(terrain, localX, localY - 1, chunkI, chunkJ);
-                    }
+        // start of a valley, fill in water working back
+        Array<TilePoint> points = new Array<TilePoint>();
+        int localX = x;
+        int downX = x - 1;
+        boolean finished = false;
+        while (index.isGround(downX, y - 1) && !finished) {
+            points.add(TilePoint.of(localX, y));
+
+            if (index.isTerrain(localX, y) && index.getSlope(localX) < 0) {
+                // found the other end
+                finished = true;
+            }
 
-                    // liquid or lava
-                    boolean isLiquid = rand.fairFlip(0.6);
-
-                    // only add cells if we finished, otherwise we have an incomplete valley
-                    if (finished) {
-                        for (TilePoint point : points) {
-                            float scaleY = 0.5f;
-                            PhaseActivator activator;
-                            if (isLiquid) {
-                                TiledMapTile tile = getTile("water/top");
-                                Body body = createBody(tile, world, point.x + worldX, point.y
-                                        + worldY, scaleY);
-                                activator = new LiquidActivator(tile, point.x + worldX, point.y
-                                        + worldY, body);
-                            } else {
-                                TiledMapTile tile = getTile("lava/top");
-                                Body body = createBody(tile, world, point.x + worldX, point.y
-                                        + worldY, scaleY);
-                                activator = new GasActivator(tile, point.x + worldX, point.y
-                                        + worldY, body);
-                            }
-
-                            int tileX = activator.getX() - worldX;
-                            int tileY = activator.getY() - worldY;
-                            WorldCell cell = new WorldCell(activator.getTile(), tileX, tileY,
-                                    activator.getX(), activator.getY(), Type.Activator, scaleY);
-                            setCell(cell, cell.getLocalX(), cell.getLocalY(), chunkI, chunkJ, layer);
-                            layer.addBody(activator.getBody());
-                        }
-                    }
-                }
+            // update down cell
+            localX -= 1;
+            downX = localX;
+        }
+
+        // liquid or lava
+        rand.seek(worldX + x, worldY + y, Purpose.Water);
+        boolean isLiquid = rand.fairFlip(0.6);
+
+        // only add cells if we finished, otherwise we have an incomplete valley
+        if (finished) {
+            float scaleY = 0.5f;
+            TiledMapTile tile = getTile(isLiquid ? "water/top" : "lava/top");
+            Phase phase = isLiquid ? Phase.Liquid : Phase.Gas;
+            for (TilePoint point : points) {
+                setActivator(chunk, tile, phase, scaleY, point.x, point.y, chunkI, chunkJ, layer);
             }
         }
     }
 
-    private void generateObstacles(ChunkLayer layer, int chunkI, int chunkJ, int worldX, int worldY) {
-        for (int x = 0; x < layer.getWidth(); x++) {
-            for (int y = 0; y < layer.getHeight(); y++) {
-                if (!isNullOrEmpty(layer.getCell(x, y))) {
-                    // already has cell
-                    continue;
-                }
+    /**
+     * Places the column's walls, bridges and ropes.  Walls only stand on flat ground and ropes
+     * only hang under log bridges, so just those cells are tried.  Bridges can start in any
+     * empty cell over another empty one, and jump from one hit to the next off a single seek.
+     */
+    private void generateObstacles(ChunkLayer layer, int x, int chunkI, int chunkJ, int worldX,
+            int worldY) {
+        int ground = index.getSurface(x) + 1;
+        if (index.isEmpty(x, ground) && index.isTerrain(x, ground - 1)
+                && index.getSlope(x) == 0) {
+            rand.seek(worldX + x, worldY + ground, Purpose.Wall);
+            if (rand.flip(0.075)) {
+                // add a wall
+                TiledMapTile tile = getTile("grass/hill-large");
+                layer.setCell(x, ground, tile, Type.Platform);
+                index.occupy(x, ground);
+                layer.addBodySpec(new PlatformSpec(tile, worldX + x, worldY + ground,
+                        ALL_BITS, 1, 1, ContactTag.Water));
+            }
+        }
 
-                int localX = x;
-                int localY = y;
-                WorldCell down = getCell(layer, localX, localY - 1, chunkI, chunkJ);
-                if (down == WorldCell.EMPTY && rand.fairFlip(0.025)) {
-                    // add a bridge
-                    TiledMapTile tile;
-                    short maskBits;
-                    float scaleY;
-                    boolean multiPart;
-                    if (rand.fairFlip(0.5)) {
-                        tile = getTile("grass/bridge-logs");
-                        maskBits = BIT_SOLID;
-                        scaleY = 0.35f;
-                        multiPart = false;
+        double odds = 0.025;
+        rand.seek(worldX + x, worldY, Purpose.Obstacle);
+        for (int y = nextRow(index.getFirstOpen(x) - 1, odds); y < height;
+                y = nextRow(y, odds)) {
+            int localX = x;
+            boolean down = isEmpty(layer, localX, y - 1, chunkI, chunkJ);
+            if (!index.isEmpty(x, y) || !down) {
+                // already has cell, or nothing below to span
+                continue;
+            }
+
+            // add a bridge
+            TiledMapTile tile;
+            short maskBits;
+            float scaleY;
+            boolean multiPart;
+            if (rand.fairFlip(0.5)) {
+                tile = getTile("grass/bridge-logs");
+                maskBits = BIT_SOLID;
+                scaleY = 0.35f;
+                multiPart = false;
+            } else {
+                tile = getTile("grass/half-mid");
+                maskBits = ALL_BITS;
+                scaleY = 1.0f;
+                multiPart = true;
+            }
+
+            // the bridge can't be laid into the next chunk, but can run up to its edge
+            boolean left = isEmpty(layer, localX - 1, y, chunkI, chunkJ);
+            boolean right = isEmpty(layer, localX + 1, y, chunkI, chunkJ);
+            while (localX < width && down && left && right && rand.fairFlip(0.75)) {
+                layer.setCell(localX, y, tile, Type.Platform, 0, scaleY);
+                index.occupy(localX, y);
+
+                localX++;
+                down = isEmpty(layer, localX, y - 1, chunkI, chunkJ);
+                right = isEmpty(layer, localX + 1, y, chunkI, chunkJ);
+            }
+
+            // add a body for the platform if empty space was found
+            int dx = localX - x;
+            if (dx > 0) {
+                layer.addBodySpec(new PlatformSpec(tile, worldX + x, worldY + y,
+                        maskBits, dx, scaleY));
+
+                // update tiles
+                if (multiPart) {
+                    // solid bridge
+                    if (dx > 1) {
+                        layer.setTile(x, y, getTile("grass/half-left"));
+                        layer.setTile(localX - 1, y, getTile("grass/half-right"));
                     } else {
-                        tile = getTile("grass/half-mid");
-                        maskBits = ALL_BITS;
-                        scaleY = 1.0f;
-                        multiPart = true;
-                    }
-                    
-                    WorldCell left = getCell(layer, localX - 1, localY, chunkI, chunkJ);
-                    WorldCell right = getCell(layer, localX + 1, localY, chunkI, chunkJ);
-                    while (down == WorldCell.EMPTY && left == WorldCell.EMPTY 
-                            && right == WorldCell.EMPTY && rand.fairFlip(0.75)) {
-                        WorldCell cell = new WorldCell(tile, localX, localY, worldX + localX, worldY + localY,
-                                Type.Platform, scaleY);
-                        layer.setCell(localX, localY, cell);
-                        
-                        localX++;
-                        down = getCell(layer, localX, localY - 1, chunkI, chunkJ);
-                        right = getCell(layer, localX + 1, localY, chunkI, chunkJ);
-                    }
-                    
-                    // add a body for the platform if empty space was found
-                    int dx = localX - x;
-                    if (dx > 0) {
-                        Platform platform = new Platform(tile, worldX + x, worldY + y,
-                                maskBits, world, dx, scaleY);
-                        layer.addBody(platform.getBody());
-                        
-                        // update tiles
-                        if (multiPart) {
-                            // solid bridge
-                            if (dx > 1) {
-                                getCell(layer, x, y, chunkI, chunkJ).setTile(getTile("grass/half-left"));
-                                getCell(layer, localX - 1, y, chunkI, chunkJ).setTile(getTile("grass/half-right"));
-                            } else {
-                                getCell(layer, x, y, chunkI, chunkJ).setTile(getTile("grass/half"));
-                            }
-                        }
-                    }
-                } else if (isTerrain(down) && down.getSlope() == 0) {
-                    if (rand.flip(0.075)) {
-                        // add a wall
-                        TiledMapTile tile = getTile("grass/hill-large");
-                        WorldCell cell = new WorldCell(tile, localX, localY, worldX + localX,
-                                worldY + localY, Type.Platform);
-                        layer.setCell(localX, localY, cell);
-                        Platform platform = new Platform(tile, worldX + x, worldY + y,
-                                ALL_BITS, world, 1, 1, "water");
-                        layer.addBody(platform.getBody());
+                        layer.setTile(x, y, getTile("grass/half"));
                     }
                 }
             }
         }
-        
-        // second pass
-        for (int x = 0; x < layer.getWidth(); x++) {
-            for (int y = 0; y < layer.getHeight(); y++) {
-                if (!isNullOrEmpty(layer.getCell(x, y))) {
-                    // already has cell
-                    continue;
-                }
-                
-                int localX = x;
-                int localY = y;
-                WorldCell up = getCell(layer, localX, localY + 1, chunkI, chunkJ);
-                if (!isNullOrEmpty(up) && up.getTile() == getTile("grass/bridge-logs") && rand.fairFlip(0.25)) {
-                    // log bridge -> build ropes
-                    TiledMapTile tile = getTile("grass/rope-attached");
-                    while (getCell(layer, localX, localY, chunkI, chunkJ) == WorldCell.EMPTY && rand.fairFlip(0.9)) {
-                        // sanity check: make sure the tile below is not an uphill slope, or else the player can get stuck
-                        WorldCell down = getCell(layer, localX, localY - 1, chunkI, chunkJ);
-                        if (!isNullOrEmpty(down) && down.getSlope() > 0) {
-                            break;
-                        }
-                        
-                        // place the next rope
-                        WorldCell cell = new WorldCell(tile, localX, localY, worldX + localX,
-                                worldY + localY, Type.Platform);
-                        layer.setCell(localX, localY, cell);
-                        
-                        // only use the attached rope for the first piece
-                        tile = getTile("grass/rope-vertical");
-                        localY--;
-                    }
-                    
-                    int dy = y - localY;
-                    if (dy > 0) {
-                        Platform platform = new Platform(tile, worldX + localX + 0.5f, worldY + localY + 1,
-                                BIT_LIQUID, world, 0, dy, "water");
-                        layer.addBody(platform.getBody());
+
+        // hang ropes from the log bridges, now that everything in the column is placed, including
+        // from one in the chunk above
+        TiledMapTile logs = getTile("grass/bridge-logs");
+        int hooks = (index.getOccupied(x) >>> 1) & index.getEmpty(x);
+        if (getTileAt(layer, x, height, chunkI, chunkJ) == logs) {
+            hooks |= (1 << (height - 1)) & index.getEmpty(x);
+        }
+        for (int rows = hooks; rows != 0; rows &= rows - 1) {
+            int y = Integer.numberOfTrailingZeros(rows);
+            if (getTileAt(layer, x, y + 1, chunkI, chunkJ) != logs) {
+                // not under a log bridge
+                continue;
+            }
+
+            int localY = y;
+            rand.seek(worldX + x, worldY + y, Purpose.Rope);
+            if (rand.fairFlip(0.25)) {
+                // log bridge -> build ropes
+                TiledMapTile tile = getTile("grass/rope-attached");
+                while (index.isEmpty(x, localY) && rand.fairFlip(0.9)) {
+                    // sanity check: make sure the tile below is not an uphill slope, or else the player can get stuck
+                    if (index.isTerrain(x, localY - 1) && index.getSlope(x) > 0) {
+                        break;
                     }
+
+                    // place the next rope
+                    layer.setCell(x, localY, tile, Type.Platform);
+                    index.occupy(x, localY);
+
+                    // only use the attached rope for the first piece
+                    tile = getTile("grass/rope-vertical");
+                    localY--;
+                }
+
+                int dy = y - localY;
+                if (dy > 0) {
+                    layer.addBodySpec(new PlatformSpec(tile, worldX + x + 0.5f,
+                            worldY + localY + 1, BIT_LIQUID, 0, dy, ContactTag.Water));
                 }
             }
         }
     }
 
-    private void generateBackground(ChunkLayer layer, int chunkI, int chunkJ, int worldX, int worldY) {
-        for (int x = 0; x < layer.getWidth(); x++) {
-            // top -> bottom
-            for (int y = layer.getHeight() - 1; y >= 0; y--) {
-                if (!isNullOrEmpty(layer.getCell(x, y))) {
-                    // already has cell
-                    continue;
-                }
-
-                WorldCell up = getCell(layer, x, y + 1, chunkI, chunkJ);
-                if (!isNullOrEmpty(up)) {
-                    if (up.getType() == Type.Terrain || up.getType() == Type.Filler) {
-                        StaticTiledMapTile tile = getTile("grass/center");
-                        if (up.getSlope() < 0) {
-                            tile = getTile("grass/hill-right2");
-                        } else if (up.getSlope() > 0) {
-                            tile = getTile("grass/hill-left2");
-                        }
-                        WorldCell cell = new WorldCell(tile, x, y, worldX + x, worldY + y,
-                                Type.Filler);
-                        layer.setCell(x, y, cell);
-                    }
+    /**
+     * Fills the column below the terrain surface, which may lie above the chunk entirely.
+     */
+    private void generateBackground(ChunkLayer layer, int x, int worldX, int worldY) {
+        int surface = index.getSurface(x);
+        int top = Math.min(surface, layer.getHeight());
+        StaticTiledMapTile center = getTile("grass/center");
+        for (int y = 0; y < top; y++) {
+            StaticTiledMapTile tile = center;
+            if (y == surface - 1) {
+                // just under the surface, so follow the slope
+                if (index.getSlope(x) < 0) {
+                    tile = getTile("grass/hill-right2");
+                } else if (index.getSlope(x) > 0) {
+                    tile = getTile("grass/hill-left2");
                 }
             }
+            layer.setCell(x, y, tile, Type.Filler);
         }
     }
 
-    private boolean isTerrain(WorldCell cell) {
-        return cell != null && cell != WorldCell.EMPTY && cell.getType() == Type.Terrain;
+    private boolean isPlatform(ChunkLayer layer, int x, int y, int chunkI, int chunkJ) {
+        ChunkLayer owner = getLayerAt(layer, x, y, chunkI, chunkJ);
+        return owner != null && owner.getType(wrap(x, width), wrap(y, height)) == Type.Platform;
     }
-    
-    private boolean isPlatform(WorldCell cell) {
-        return cell != null && cell != WorldCell.EMPTY && cell.getType() == Type.Platform;
+
+    /**
+     * True if the cell is free for decoration.  Cells in this chunk are looked up in the index,
+     * and cells past its edges in the neighboring chunk, as far as it has been generated.  A
+     * neighbor that doesn't exist yet counts as taken, since its cells aren't known.
+     */
+    private boolean isEmpty(ChunkLayer layer, int x, int y, int chunkI, int chunkJ) {
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            return index.isEmpty(x, y);
+        }
+        ChunkLayer owner = getLayerAt(layer, x, y, chunkI, chunkJ);
+        return owner != null && !owner.hasCell(wrap(x, width), wrap(y, height));
     }
-    
-    private boolean isFiller(WorldCell cell) {
-        return cell != null && cell != WorldCell.EMPTY && cell.getType() == Type.Filler;
+
+    private TiledMapTile getTileAt(ChunkLayer layer, int x, int y, int chunkI, int chunkJ) {
+        ChunkLayer owner = getLayerAt(layer, x, y, chunkI, chunkJ);
+        return owner != null ? owner.getTile(wrap(x, width), wrap(y, height)) : null;
+    }
+
+    /**
+     * The layer at the same depth as the given one in the chunk holding local cell (x, y), which
+     * may be a neighbor, or null if that chunk isn't in the grid.
+     */
+    private ChunkLayer getLayerAt(ChunkLayer layer, int x, int y, int chunkI, int chunkJ) {
+        int chunkX = (int) Math.floor(1.0 * x / width) + chunkJ;
+        int chunkY = (int) Math.floor(1.0 * y / height) + chunkI;
+        if (chunkX == chunkJ && chunkY == chunkI) {
+            return layer;
+        }
+
+        // the grid may have prefetched columns past the visible ones
+        if (chunkX < 0 || chunkY < 0 || chunkX >= chunks[0].length || chunkY >= CHUNKS
+                || chunks[chunkY][chunkX] == null
+                || chunks[chunkY][chunkX].getLayers().getCount() <= layer.getZ()) {
+            return null;
+        }
+        return (ChunkLayer) chunks[chunkY][chunkX].getLayers().get(layer.getZ());
+    }
+
+    /**
+     * Local coordinate within the chunk that holds it.
+     */
+    private static int wrap(int a, int length) {
+        return (a % length + length) % length;
     }
 
     private boolean outsideLayer(WorldCell lastTerrain, ChunkLayer layer, int worldY) {
@@ -472,58 +532,71 @@ public class MapChunkGenerator {
     }
 
     private void generateTerrain(ChunkLayer layer, int chunkI, int chunkJ, int worldX, int worldY) {
-        int vertexCount = 0;
         if (lastTerrain == null) {
             if (worldX == 0 && worldY == 0) {
                 // seed the first cell
                 lastTerrain = new WorldCell(getTile("grass/mid"), 0, 0, 0, 0, Type.Terrain);
                 layer.setCell(0, 0, lastTerrain);
                 terrainCells.add(lastTerrain);
-                vertexCount++;
                 layer.updateTerrainLimit(0);
             }
         }
 
-        if (outsideLayer(lastTerrain, layer, worldY)) {
-            // wrong layer for terrain
+        if (lastTerrain == null) {
+            // nothing to build on yet
             return;
         }
-
-        // check to see if this layer needs to be reconstructed from existing terrain
+        
         if (lastTerrain.getWorldX() - worldX + 1 >= layer.getWidth()) {
+            // this layer needs to be reconstructed from existing terrain
             regenerateTerrain(layer, chunkI, chunkJ, worldX, worldY);
-            return;
+        } else if (!outsideLayer(lastTerrain, layer, worldY)) {
+            doTerrainGeneration(layer, chunkI, chunkJ, worldX, worldY);
         }
-
-        vertexCount += doTerrainGeneration(layer, chunkI, chunkJ, worldX, worldY);
-
-        // check for terrain vertices
-        if (vertexCount >= 2) {
-            // create the body
-            BodyDef bdef = new BodyDef();
-            bdef.type = BodyType.StaticBody;
-
-            ChainShape chain = new ChainShape();
-            Vector2[] vertices = new Vector2[terrainCells.size];
-            for (int i = 0; i < terrainCells.size; i++) {
-                vertices[i] = terrainCells.get(i).getTerrainVector();
-            }
-            chain.createChain(vertices);
-
-            FixtureDef fd = new FixtureDef();
-            fd.shape = chain;
-            fd.filter.categoryBits = 0x0001;
-            fd.filter.maskBits = Type.Terrain.getMaskBits();
-
-            if (chainBody != null) {
-                contactListener.endContact(chainBody);
-                world.destroyBody(chainBody);
+        
+        addTerrainSegment(layer, worldX, worldY);
+    }
+    
+    /**
+     * Adds the piece of the terrain chain owned by this chunk.  An edge belongs to the chunk
+     * holding the vertex after its far end, so each segment can be given both of its ghost
+     * vertices up front and segments join without seams.  The one edge that can't be completed
+     * yet is picked up by whichever chunk continues the terrain.
+     */
+    private void addTerrainSegment(ChunkLayer layer, int worldX, int worldY) {
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < terrainCells.size; i++) {
+            WorldCell cell = terrainCells.get(i);
+            int x = cell.getWorldX() - worldX;
+            int y = cell.getWorldY() - worldY;
+            if (x >= 0 && x < layer.getWidth() && y >= 0 && y < layer.getHeight()) {
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
             }
-            chainBody = world.createBody(bdef);
-            Fixture fixture = chainBody.createFixture(fd);
-            fixture.setUserData("ground");
-            chain.dispose();
         }
+        
+        if (first < 0) {
+            // no terrain in this chunk
+            return;
+        }
+        
+        int start = Math.max(first - 2, 0);
+        int end = last - 1;
+        if (end - start < 1) {
+            // not enough for a single edge
+            return;
+        }
+        
+        Vector2[] vertices = new Vector2[end - start + 1];
+        for (int i = start; i <= end; i++) {
+            vertices[i - start] = terrainCells.get(i).getTerrainVector();
+        }
+        Vector2 prev = start > 0 ? terrainCells.get(start - 1).getTerrainVector() : null;
+        Vector2 next = terrainCells.get(last).getTerrainVector();
+        layer.addBodySpec(new ChainSpec(vertices, prev, next));
     }
     
     protected int doTerrainGeneration(ChunkLayer layer, int chunkI, int chunkJ, int worldX, int worldY) {
@@ -556,7 +629,9 @@ public class MapChunkGenerator {
             }
 
             if (candidates.size > 0) {
-                WorldCell cell = candidates.get((int) (Math.random() * candidates.size));
+                // keyed by column alone, so the terrain doesn't depend on generation order
+                rand.seek(worldX + x2, 0, Purpose.Terrain);
+                WorldCell cell = candidates.get(rand.choose(candidates.size));
                 layer.setCell(cell.getLocalX(), cell.getLocalY(), cell);
                 terrainCells.add(cell);
                 vertexCount++;
@@ -582,49 +657,19 @@ public class MapChunkGenerator {
                 continue;
             }
 
-            layer.setCell(cell.getLocalX(), cell.getLocalY(), cell);
-            layer.updateTerrainLimit(cell.getLocalY());
+            layer.setCell(x, y, cell);
+            layer.updateTerrainLimit(y);
         }
     }
     
-    private boolean isNullOrEmpty(WorldCell cell) {
-        return cell == null || cell == WorldCell.EMPTY;
-    }
-
-    private WorldCell getCell(ChunkLayer layer, int x, int y, int chunkI, int chunkJ) {
-        // get the updated chunk
-        int chunkX = (int) Math.floor(1.0 * x / width) + chunkJ;
-        int chunkY = (int) Math.floor(1.0 * y / height) + chunkI;
-
-        // handle out of bounds
-        if (chunkX < 0 || chunkY < 0 || chunkX >= CHUNKS || chunkY >= CHUNKS) {
-            return null;
-        }
-
-        // update layer if chunks differ
-        if (chunkX != chunkJ || chunkY != chunkI) {
-            if (chunks[chunkY][chunkX] == null
-                    || chunks[chunkY][chunkX].getLayers().getCount() <= layer.getZ()) {
-                // out of bounds
-                return null;
-            }
-            layer = (ChunkLayer) chunks[chunkY][chunkX].getLayers().get(layer.getZ());
-        }
-
-        // return the cell within chunk
-        int tileX = x - (chunkX - chunkJ) * width;
-        int tileY = y - (chunkY - chunkI) * height;
-        WorldCell cell = layer.getCell(tileX, tileY);
-        return cell != null ? cell : WorldCell.EMPTY;
-    }
-
-    private void setCell(WorldCell cell, int x, int y, int chunkI, int chunkJ, ChunkLayer layer) {
+    private void setActivator(GeneratedChunk chunk, TiledMapTile tile, Phase phase, float scaleY,
+            int x, int y, int chunkI, int chunkJ, ChunkLayer layer) {
         // get the updated chunk
         int chunkX = (int) Math.floor(1.0 * x / width) + chunkJ;
         int chunkY = (int) Math.floor(1.0 * y / height) + chunkI;
 
-        // handle out of bounds
-        if (chunkX < 0 || chunkY < 0 || chunkX >= CHUNKS || chunkY >= CHUNKS) {
+        // handle out of bounds, the grid may have prefetched columns past the visible ones
+        if (chunkX < 0 || chunkY < 0 || chunkX >= chunks[0].length || chunkY >= CHUNKS) {
             return;
         }
 
@@ -638,10 +683,15 @@ public class MapChunkGenerator {
             layer = (ChunkLayer) chunks[chunkY][chunkX].getLayers().get(layer.getZ());
         }
 
-        // return the cell within chunk
+        // set the cell within chunk, deferring writes to chunks that may already be rendered
         int tileX = x - (chunkX - chunkJ) * width;
         int tileY = y - (chunkY - chunkI) * height;
-        layer.setCell(tileX, tileY, cell);
+        if (chunkX != chunkJ || chunkY != chunkI) {
+            chunk.addNeighborCell(layer, tileX, tileY,
+                    layer.pack(tile, Type.Activator, 0, scaleY, phase));
+        } else {
+            layer.setActivator(tileX, tileY, tile, phase, scaleY);
+        }
     }
 
     protected StaticTiledMapTile getTile(String key) {
@@ -655,14 +705,17 @@ public class MapChunkGenerator {
     
     public static class MapChunkGeneratorFactory {
         protected final Randomizer randomizer;
+        protected final AssetRegistry assets;
         
-        public MapChunkGeneratorFactory(Randomizer randomizer) {
+        public MapChunkGeneratorFactory(Randomizer randomizer, AssetRegistry assets) {
             this.randomizer = randomizer;
+            this.assets = assets;
         }
         
         public MapChunkGenerator createGenerator(HydrokContactListener contactListener,
                 TiledMap[][] chunks, World world, int width, int height) {
-            return new MapChunkGenerator(contactListener, chunks, world, randomizer, width, height);
+            return new MapChunkGenerator(contactListener, chunks, world, randomizer, assets, width,
+                    height);
         }
     }
 }
@@ -2,61 +2,132 @@ package com.eldritch.hydrok.level;
 
 import static com.eldritch.hydrok.util.Settings.SCALE;
 
+import java.util.Comparator;
+
 import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
-import com.badlogic.gdx.physics.box2d.Filter;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
 import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+import com.eldritch.hydrok.util.ContactTag;
 
-
+/**
+ * Static boxes for bridges, walls and ropes, gathered into a single body with a fixture per box.
+ * Boxes that sit side by side with the same height, filter and tag are merged into one fixture
+ * first.  The builder can be reused once the body is created.
+ */
 public class Platform {
-    private final Body body;
-    
-    public Platform(WorldCell cell, World world, float scaleY) {
-        this(cell.getTile(), cell.getWorldX(), cell.getWorldY(), cell.getType().getMaskBits(), world, 1, scaleY);
-    }
-    
-    public Platform(TiledMapTile tile, float worldX, float worldY, short maskBits, World world, float scaleX, float scaleY) {
-        this(tile, worldX, worldY, maskBits, world, scaleX, scaleY, "ground");
-    }
-    
-    public Platform(TiledMapTile tile, float worldX, float worldY, short maskBits, World world, float scaleX, float scaleY, String userData) {
-        float halfWidth = (scaleX * tile.getTextureRegion().getRegionWidth() / 2.0f) * SCALE;
-        float halfHeight = (scaleY * tile.getTextureRegion().getRegionHeight() / 2.0f) * SCALE;
-        
-        // Create our body definition
-        BodyDef groundBodyDef = new BodyDef();
-        // Set its world position
-        groundBodyDef.position.set(new Vector2(worldX + halfWidth, worldY + halfHeight));
-
-        // Create a body from the defintion and add it to the world
-        body = world.createBody(groundBodyDef);
-
-        // Create a polygon shape
-        PolygonShape groundBox = new PolygonShape();
-
-        // setAsBox takes half-width and half-height as arguments
-        groundBox.setAsBox(halfWidth, halfHeight);
-
-        // Create a fixture from our polygon shape and add it to our ground body
-        Fixture fixture = body.createFixture(groundBox, 0.0f);
-        fixture.setUserData(userData);
-
-        // set collision masks
-        Filter filter = fixture.getFilterData();
-        filter.categoryBits = 0x0001;
-        filter.maskBits = maskBits;
-        fixture.setFilterData(filter);
-
-        // Clean up after ourselves
-        groundBox.dispose();
+    // boxes closer than this are treated as touching
+    private static final float EPSILON = 0.001f;
+
+    private final Array<Box> boxes = new Array<Box>();
+    private final Pool<Box> pool = new Pool<Box>() {
+        @Override
+        protected Box newObject() {
+            return new Box();
+        }
+    };
+    private final Vector2 center = new Vector2();
+
+    public void add(TiledMapTile tile, float worldX, float worldY, short maskBits, float scaleX,
+            float scaleY, ContactTag tag) {
+        Box box = pool.obtain();
+        box.x = worldX;
+        box.y = worldY;
+        box.width = scaleX * tile.getTextureRegion().getRegionWidth() * SCALE;
+        box.height = scaleY * tile.getTextureRegion().getRegionHeight() * SCALE;
+        box.maskBits = maskBits;
+        box.tag = tag;
+        boxes.add(box);
     }
-    
-    
-    public Body getBody() {
+
+    /**
+     * Creates the body holding every box added since the last call, or returns null if there
+     * were none.
+     */
+    public Body create(World world) {
+        if (boxes.size == 0) {
+            return null;
+        }
+
+        // neighbours end up next to each other, left to right
+        boxes.sort(ORDER);
+        int merged = 0;
+        for (int i = 1; i < boxes.size; i++) {
+            Box last = boxes.get(merged);
+            Box box = boxes.get(i);
+            if (last.continuesWith(box)) {
+                last.width = box.x + box.width - last.x;
+                pool.free(box);
+            } else {
+                boxes.set(++merged, box);
+            }
+        }
+        boxes.truncate(merged + 1);
+
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = BodyType.StaticBody;
+        Body body = world.createBody(bodyDef);
+
+        PolygonShape shape = new PolygonShape();
+        FixtureDef def = new FixtureDef();
+        def.shape = shape;
+        def.density = 0;
+        def.filter.categoryBits = 0x0001;
+        for (Box box : boxes) {
+            float halfWidth = box.width / 2;
+            float halfHeight = box.height / 2;
+            center.set(box.x + halfWidth, box.y + halfHeight);
+            shape.setAsBox(halfWidth, halfHeight, center, 0);
+            def.filter.maskBits = box.maskBits;
+
+            Fixture fixture = body.createFixture(def);
+            fixture.setUserData(box.tag);
+        }
+        shape.dispose();
+
+        pool.freeAll(boxes);
+        boxes.clear();
         return body;
     }
+
+    private static final Comparator<Box> ORDER = new Comparator<Box>() {
+        @Override
+        public int compare(Box a, Box b) {
+            if (a.maskBits != b.maskBits) {
+                return a.maskBits - b.maskBits;
+            }
+            if (a.tag != b.tag) {
+                return a.tag.ordinal() - b.tag.ordinal();
+            }
+            if (a.y != b.y) {
+                return a.y < b.y ? -1 : 1;
+            }
+            if (a.height != b.height) {
+                return a.height < b.height ? -1 : 1;
+            }
+            return a.x < b.x ? -1 : a.x > b.x ? 1 : 0;
+        }
+    };
+
+    private static class Box {
+        float x;
+        float y;
+        float width;
+        float height;
+        short maskBits;
+        ContactTag tag;
+
+        public boolean continuesWith(Box box) {
+            return box.maskBits == maskBits && box.tag == tag
+                    && Math.abs(box.y - y) < EPSILON && Math.abs(box.height - height) < EPSILON
+                    && Math.abs(box.x - (x + width)) < EPSILON;
+        }
+    }
 }
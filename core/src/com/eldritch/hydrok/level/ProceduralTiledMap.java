@@ -1,10 +1,21 @@
 package com.eldritch.hydrok.level;
 
+import static com.eldritch.hydrok.util.Settings.ACTIVATION_RADIUS;
 import static com.eldritch.hydrok.util.Settings.CHUNKS;
+import static com.eldritch.hydrok.util.Settings.CHUNK_BUDGET;
+import static com.eldritch.hydrok.util.Settings.CHUNK_CACHE_SIZE;
+import static com.eldritch.hydrok.util.Settings.PREFETCH_SECONDS;
 import static com.eldritch.hydrok.util.Settings.TILE_WIDTH;
 import static com.eldritch.hydrok.util.Settings.TILE_HEIGHT;
 
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
@@ -13,14 +24,69 @@ import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.World;
-import com.eldritch.hydrok.entity.Entity;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.eldritch.hydrok.HydrokGame;
 import com.eldritch.hydrok.level.MapChunkGenerator.MapChunkGeneratorFactory;
 import com.eldritch.hydrok.player.Player;
 import com.eldritch.hydrok.util.HydrokContactListener;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 
 public class ProceduralTiledMap extends TiledMap {
+    // ring buffer of chunks, the logical [0, 0] chunk lives at [rowOffset, colOffset]
     private final TiledMap[][] chunks = new TiledMap[CHUNKS][CHUNKS];
+    private int rowOffset = 0;
+    private int colOffset = 0;
+    
+    // columns built ahead of the grid, each in logical row order, at least the one a right
+    // shift swaps in
+    private static final int MAX_PREFETCH = Math.max(CHUNK_BUDGET / CHUNKS - CHUNKS, 1);
+    private final Array<TiledMap[]> prefetched = new Array<TiledMap[]>();
+    
+    // rows that were scrolled off vertically, keyed by world origin, in case the player comes back
+    private static final float VERTICAL_HYSTERESIS = 0.25f;
+    private static final int SHUTDOWN_SECONDS = 2;
+    private final Cache<Long, ChunkSnapshot> evicted = CacheBuilder.newBuilder()
+            .maximumSize(CHUNK_CACHE_SIZE)
+            .removalListener(new RemovalListener<Long, ChunkSnapshot>() {
+                @Override
+                public void onRemoval(RemovalNotification<Long, ChunkSnapshot> notification) {
+                    if (notification.wasEvicted()) {
+                        // fell out of memory, but can still be paged back in
+                        store.put(notification.getKey(), notification.getValue());
+                    }
+                }
+            }).build();
+    
+    // everything that has left the grid, for long runs and for going back left
+    private final ChunkStore store;
+    
+    // the generator's view of the grid and prefetched columns, owned by the worker while a batch
+    // is in flight
+    private final TiledMap[][] staging = new TiledMap[CHUNKS][CHUNKS + MAX_PREFETCH];
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "chunk-generator");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+    private final Array<GeneratedChunk> generated = new Array<GeneratedChunk>();
+    private Future<Array<GeneratedChunk>> pending = null;
+    
+    // the row or column a shift is waiting on, committed outside the grid and swapped in whole
+    // once the last of it is committed, so the grid never has holes
+    private final TiledMap[] incoming = new TiledMap[CHUNKS + MAX_PREFETCH];
+    private Shift shift = null;
+    private int shiftTarget = 0;
+    
     private final MapChunkGenerator generator;
+    private final EntityGrid entities;
     private final int chunkWidth;
     private final int chunkHeight;
     private final Vector2 lastPosition = new Vector2();
@@ -31,12 +97,14 @@ public class ProceduralTiledMap extends TiledMap {
     public ProceduralTiledMap(HydrokContactListener listener, World world, MapChunkGeneratorFactory factory, int width, int height) {
         this.chunkWidth = width;
         this.chunkHeight = height;
-        generator = factory.createGenerator(listener, chunks, world, width, height);
+        generator = factory.createGenerator(listener, staging, world, width, height);
+        entities = new EntityGrid(world, width, height);
+        store = new ChunkStore(generator.getTileRegistry());
 
-        // generate initial chunk setup: [0, 0] is bottom left
+        // generate initial chunk setup synchronously: [0, 0] is bottom left
         for (int j = 0; j < CHUNKS; j++) {
             for (int i = CHUNKS - 1; i >= 0; i--) {
-                chunks[i][j] = generate(i, j, 0, 0);
+                commit(generate(i, j, 0, 0));
             }
         }
 
@@ -87,137 +155,562 @@ public class ProceduralTiledMap extends TiledMap {
         return CHUNKS * chunkHeight;
     }
     
-    public void addEntitiesTo(Collection<Entity> entities) {
-        for (Entity entity : generator.getNewEntities()) {
-            entities.add(entity);
+    public ChunkPool getChunkPool() {
+        return generator.getChunkPool();
+    }
+
+    /**
+     * The given layer of the chunk at row i and column j of the visible grid, or null while the
+     * map is still being built.
+     */
+    public ChunkLayer getChunkLayer(int i, int j, int index) {
+        TiledMap chunk = getChunk(i, j);
+        if (chunk == null || chunk.getLayers().getCount() <= index) {
+            return null;
+        }
+        return (ChunkLayer) chunk.getLayers().get(index);
+    }
+    
+    /**
+     * The given layer of the chunk holding the world cell, or null if it is outside the grid.
+     */
+    public ChunkLayer getChunkLayerAt(int worldX, int worldY, int index) {
+        int x = worldX - (minX - chunkWidth);
+        int y = worldY - (minY - chunkHeight);
+        if (x < 0 || y < 0 || x >= chunkWidth * CHUNKS || y >= chunkHeight * CHUNKS) {
+            return null;
+        }
+        return getChunkLayer(y / chunkHeight, x / chunkWidth, index);
+    }
+    
+    /**
+     * Entities spawned by the chunks currently in the map.
+     */
+    public EntityGrid getEntities() {
+        return entities;
+    }
+    
+    /**
+     * Scrolls the map with the player.  The minimum speed is how fast the map is being pushed
+     * forward regardless of the player, and sets how far ahead columns are prefetched.
+     */
+    public void update(Player player, float minSpeed) {
+        // drain the generated chunks a little at a time to keep frame times flat
+        Vector2 position = player.getPosition();
+        poll(position);
+        
+        // a crossing waits for the batch in flight instead of blocking on it, and the grid
+        // reaches a chunk past the player on every side, so it is still covered meanwhile
+        if (isIdle()) {
+            startShift(position);
+        }
+
+        // get ahead of the player while the worker is idle
+        if (isIdle()) {
+            prefetch(player, minSpeed);
+        }
+        
+        // only simulate what the player could reach soon
+        for (int i = 0; i < CHUNKS; i++) {
+            for (int j = 0; j < CHUNKS; j++) {
+                updateActivation(getChunk(i, j), position);
+            }
+        }
+        for (TiledMap[] column : prefetched) {
+            for (TiledMap chunk : column) {
+                updateActivation(chunk, position);
+            }
+        }
+        for (TiledMap chunk : incoming) {
+            updateActivation(chunk, position);
+        }
+
+        // reset the last position
+        lastPosition.set(position);
+    }
+    
+    @Override
+    public void dispose() {
+        // a batch in flight still uses the generator, its pool and the staging grid
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+                HydrokGame.log("Chunk generator still running after %d seconds",
+                        SHUTDOWN_SECONDS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         }
-        generator.getNewEntities().clear();
+        store.dispose();
+        generator.dispose();
+        super.dispose();
     }
     
-    public void update(Player player) {
-        // compare current chunk with the position chunk
+    public void render(ShapeRenderer renderer) {
+        renderer.begin(ShapeType.Line);
+        renderer.setColor(0, 0, 1, 1);
+        for (int i = 0; i < CHUNKS; i++) {
+            for (int j = 0; j < CHUNKS; j++) {
+                int x = minX - chunkWidth + j * chunkWidth;
+                int y = minY - chunkHeight + i * chunkHeight;
+                renderer.rect(x, y, chunkWidth, chunkHeight);
+            }
+        }
+        
+        renderer.setColor(0, 1, 0, 1);
+        for (int k = 0; k < prefetched.size; k++) {
+            int x = minX + (CHUNKS - 1 + k) * chunkWidth;
+            renderer.rect(x, minY - chunkHeight, chunkWidth, getHeight());
+        }
+        
+        renderer.setColor(1, 0, 1, 1);
+        int startX = minX - chunkWidth;
+        renderer.line(startX, getThresholdUp(), startX + getWidth(), getThresholdUp());
+        renderer.line(startX, getThresholdDown(), startX + getWidth(), getThresholdDown());
+        
+        renderer.setColor(1, 0, 0, 1);
+        renderer.rect(minX - chunkWidth, minY - chunkHeight, getWidth(), getHeight());
+        
+        renderer.end();
+    }
+    
+    /**
+     * Starts moving the grid if the player has crossed into another chunk.  Going right swaps in
+     * a prefetched column, building one first if there is none.  Every other direction builds
+     * the new row or column off the grid, and the grid only moves once it is all committed.
+     * 
+     * A new row is built as soon as the player enters the next row, a full chunk from the edge
+     * of the grid, but the grid only moves onto it past the vertical threshold.
+     */
+    private void startShift(Vector2 position) {
         int currentX = getIndex(minX, chunkWidth);
         int currentY = getIndex(minY, chunkHeight);
-        
-        Vector2 position = player.getPosition();
         int chunkX = getIndex(position.x, chunkWidth);
         int chunkY = getIndex(position.y, chunkHeight);
-        
-        float thresholdUp = minY + chunkHeight + chunkHeight / 2;
-        float thresholdDown = minY - chunkHeight / 2;
 
         // check for horizontal crossing
         if (currentX < chunkX) {
             // right
+            if (prefetched.size == 0) {
+                // nothing built ahead, so build it and shift once it is in
+                prefetched.add(new TiledMap[CHUNKS]);
+                submit(new ColumnTask(CHUNKS, currentX, currentY), 0, 0);
+                return;
+            }
+            
             for (int i = CHUNKS - 1; i >= 0; i--) {
                 // destroy the first column
-                for (MapLayer layer : chunks[i][0].getLayers()) {
-                    ChunkLayer chunk = (ChunkLayer) layer;
-                    chunk.destroy();
-                    generator.removeVertices(getWidth());
-                }
-
-                for (int j = 0; j < chunks[i].length - 1; j++) {
-                    // shift left
-                    chunks[i][j] = chunks[i][j + 1];
-                }
-
-                // regen last column
-                int j = chunks.length - 1;
-                chunks[i][j] = null;
+                archive(getChunk(i, 0));
             }
+            
+            // shift left, the evicted column becomes the last one
+            colOffset = wrap(colOffset + 1);
+            TiledMap[] column = prefetched.removeIndex(0);
             for (int i = CHUNKS - 1; i >= 0; i--) {
-                int j = chunks.length - 1;
-                chunks[i][j] = generate(i, j, chunkX, currentY);
+                setChunk(i, CHUNKS - 1, column[i]);
             }
 
             // reset min x position
             minX = chunkX * chunkWidth;
         } else if (currentX > chunkX) {
-            // left, should be rare
-        } else if (position.y > thresholdUp) {
+            // left, should be rare, and the terrain back there is only known from the store
+            begin(Shift.Left, chunkX, new ColumnTask(0, chunkX, currentY), 0, -1);
+        } else if (currentY < chunkY) {
             // up
-            for (int j = 0; j < chunks.length; j++) {
-                // destroy the first row
-                for (MapLayer layer : chunks[0][j].getLayers()) {
-                    ((ChunkLayer) layer).destroy();
+            begin(Shift.Up, chunkY, new RowTask(CHUNKS - 1, currentX, chunkY,
+                    CHUNKS + prefetched.size), 1, 0);
+        } else if (currentY > chunkY) {
+            // down
+            begin(Shift.Down, chunkY, new RowTask(0, currentX, chunkY, CHUNKS + prefetched.size),
+                    -1, 0);
+        }
+    }
+    
+    /**
+     * Starts building the row or column a shift needs.  The task sees the grid as it will be
+     * after the shift, offset by the given number of rows and columns from how it is now.
+     */
+    private void begin(Shift shift, int target, Callable<Array<GeneratedChunk>> task,
+            int rowShift, int colShift) {
+        this.shift = shift;
+        this.shiftTarget = target;
+        submit(task, rowShift, colShift);
+    }
+    
+    /**
+     * Moves the grid onto the row or column that was built for the pending shift.
+     */
+    private void finishShift() {
+        switch (shift) {
+            case Left:
+                // the last column goes back to being the first prefetched one
+                TiledMap[] column = new TiledMap[CHUNKS];
+                for (int i = CHUNKS - 1; i >= 0; i--) {
+                    column[i] = getChunk(i, CHUNKS - 1);
                 }
-
-                for (int i = 0; i < chunks.length - 1; i++) {
-                    // shift down
-                    chunks[i][j] = chunks[i + 1][j];
+                prefetched.insert(0, column);
+                if (prefetched.size > MAX_PREFETCH) {
+                    for (TiledMap chunk : prefetched.pop()) {
+                        archive(chunk);
+                    }
                 }
-
-                // regen last row
-                int i = chunks.length - 1;
-                chunks[i][j] = null;
-            }
-            for (int j = 0; j < chunks.length; j++) {
-                int i = chunks.length - 1;
-                chunks[i][j] = generate(i, j, currentX, chunkY);
-            }
-
-            // reset min y position
-            minY = chunkY * chunkHeight;
-        } else if (position.y < thresholdDown) {
-            // down
-            for (int j = 0; j < chunks.length; j++) {
-                // destroy the last row
-                for (MapLayer layer : chunks[chunks.length - 1][j].getLayers()) {
-                    ((ChunkLayer) layer).destroy();
+                
+                // shift right, the evicted column becomes the first one
+                colOffset = wrap(colOffset + CHUNKS - 1);
+                for (int i = CHUNKS - 1; i >= 0; i--) {
+                    setChunk(i, 0, incoming[i]);
                 }
-
-                for (int i = chunks.length - 1; i >= 1; i--) {
-                    // shift up
-                    chunks[i][j] = chunks[i - 1][j];
+                
+                // reset min x position
+                minX = shiftTarget * chunkWidth;
+                break;
+            case Up:
+                for (int j = 0; j < CHUNKS; j++) {
+                    // destroy the first row
+                    evict(getChunk(0, j));
                 }
-
-                // regen first row
-                chunks[0][j] = null;
-            }
-            for (int j = 0; j < chunks.length; j++) {
-                chunks[0][j] = generate(0, j, currentX, chunkY);
+                
+                // shift down, the evicted row becomes the last one
+                rowOffset = wrap(rowOffset + 1);
+                for (int j = 0; j < CHUNKS; j++) {
+                    setChunk(CHUNKS - 1, j, incoming[j]);
+                }
+                for (int k = 0; k < prefetched.size; k++) {
+                    TiledMap[] prefetchedColumn = prefetched.get(k);
+                    evict(prefetchedColumn[0]);
+                    System.arraycopy(prefetchedColumn, 1, prefetchedColumn, 0, CHUNKS - 1);
+                    prefetchedColumn[CHUNKS - 1] = incoming[CHUNKS + k];
+                }
+                
+                // reset min y position
+                minY = shiftTarget * chunkHeight;
+                break;
+            case Down:
+                for (int j = 0; j < CHUNKS; j++) {
+                    // destroy the last row
+                    evict(getChunk(CHUNKS - 1, j));
+                }
+                
+                // shift up, the evicted row becomes the first one
+                rowOffset = wrap(rowOffset + CHUNKS - 1);
+                for (int j = 0; j < CHUNKS; j++) {
+                    setChunk(0, j, incoming[j]);
+                }
+                for (int k = 0; k < prefetched.size; k++) {
+                    TiledMap[] prefetchedColumn = prefetched.get(k);
+                    evict(prefetchedColumn[CHUNKS - 1]);
+                    System.arraycopy(prefetchedColumn, 0, prefetchedColumn, 1, CHUNKS - 1);
+                    prefetchedColumn[0] = incoming[CHUNKS + k];
+                }
+                
+                // reset min y position
+                minY = shiftTarget * chunkHeight;
+                break;
+        }
+        
+        Arrays.fill(incoming, null);
+        shift = null;
+    }
+    
+    /**
+     * True once the player is far enough into the pending shift's row or column for the grid to
+     * move onto it.
+     */
+    private boolean isShiftDue(Vector2 position) {
+        switch (shift) {
+            case Up:
+                return position.y > getThresholdUp();
+            case Down:
+                return position.y < getThresholdDown();
+            default:
+                return true;
+        }
+    }
+    
+    /**
+     * True if a row built for a vertical shift is no longer wanted, because the player went back
+     * to the middle row or has to move sideways first.
+     */
+    private boolean isShiftStale(Vector2 position) {
+        return getIndex(position.y, chunkHeight) == getIndex(minY, chunkHeight)
+                || getIndex(position.x, chunkWidth) != getIndex(minX, chunkWidth);
+    }
+    
+    /**
+     * Drops the row built for a vertical shift.  Its chunks are kept like any other evicted
+     * chunk, so crossing again soon restores them instead of generating them.
+     */
+    private void cancelShift() {
+        for (TiledMap chunk : incoming) {
+            if (chunk != null) {
+                evict(chunk);
             }
-
-            // reset min y position
-            minY = chunkY * chunkHeight;
         }
+        Arrays.fill(incoming, null);
+        shift = null;
+    }
+    
+    /**
+     * True if no batch is being built or committed, and no shift is waiting on one.
+     */
+    private boolean isIdle() {
+        return pending == null && generated.size == 0 && shift == null;
+    }
+    
+    /**
+     * Vertical shifts happen a little past the middle of the next row, so bobbing around the
+     * boundary doesn't flip rows back and forth.  The row itself is built before this, see
+     * {@link #startShift}.
+     */
+    private float getThresholdUp() {
+        return minY + chunkHeight + chunkHeight / 2 + chunkHeight * VERTICAL_HYSTERESIS;
+    }
+    
+    private float getThresholdDown() {
+        return minY - chunkHeight / 2 - chunkHeight * VERTICAL_HYSTERESIS;
+    }
+    
+    private int getIndex(float a, int length) {
+        return (int) Math.floor(a / length);
+    }
+    
+    private TiledMap getChunk(int i, int j) {
+        return chunks[wrap(i + rowOffset)][wrap(j + colOffset)];
+    }
+    
+    private void setChunk(int i, int j, TiledMap chunk) {
+        chunks[wrap(i + rowOffset)][wrap(j + colOffset)] = chunk;
+    }
+    
+    /**
+     * Wraps an index into the ring, for indices less than twice around.
+     */
+    private static int wrap(int index) {
+        return index >= CHUNKS ? index - CHUNKS : index;
+    }
 
-        // reset the last position
-        lastPosition.set(position);
+    private GeneratedChunk generate(int i, int j, int chunkX, int chunkY) {
+        int worldX = (chunkX + j) * chunkWidth - chunkWidth;
+        int worldY = (chunkY + i) * chunkHeight - chunkHeight;
+        
+        // restoring a chunk seen before is much cheaper than generating it
+        long key = ChunkSnapshot.key(worldX, worldY);
+        ChunkSnapshot snapshot = evicted.getIfPresent(key);
+        if (snapshot == null) {
+            snapshot = store.get(key);
+        }
+        GeneratedChunk chunk;
+        if (snapshot != null && generator.canRestore(worldX)) {
+            evicted.invalidate(key);
+            chunk = generator.restore(snapshot, i, j, worldX, worldY);
+        } else {
+            chunk = generator.generate(i, j, worldX, worldY);
+        }
+        
+        // later chunks in the same batch look at this one for their neighbors
+        staging[i][j] = chunk.getMap();
+        return chunk;
     }
     
-    public void render(ShapeRenderer renderer) {
-        renderer.begin(ShapeType.Line);
-        renderer.setColor(0, 0, 1, 1);
+    private void commit(GeneratedChunk chunk) {
+        generator.commit(chunk);
+        entities.open(chunk.getWorldX(), chunk.getWorldY());
+        for (EntitySpec spec : chunk.getEntities()) {
+            entities.spawn(spec, chunk.getWorldX(), chunk.getWorldY());
+        }
+        
+        int i = chunk.getChunkI();
+        int j = chunk.getChunkJ();
+        if (shift == Shift.Left) {
+            incoming[i] = chunk.getMap();
+        } else if (shift != null) {
+            incoming[j] = chunk.getMap();
+        } else if (j < CHUNKS) {
+            setChunk(i, j, chunk.getMap());
+        } else {
+            prefetched.get(j - CHUNKS)[i] = chunk.getMap();
+        }
+    }
+    
+    /**
+     * Starts building the next column past the grid if the player could reach it within the
+     * lookahead time.  How many columns may be held ahead is capped by the chunk budget.
+     */
+    private void prefetch(Player player, float minSpeed) {
+        float speed = Math.max(player.getVelocity().x, minSpeed);
+        int wanted = (int) Math.ceil(speed * PREFETCH_SECONDS / chunkWidth);
+        if (prefetched.size < Math.min(wanted, MAX_PREFETCH)) {
+            int j = CHUNKS + prefetched.size;
+            prefetched.add(new TiledMap[CHUNKS]);
+            submit(new ColumnTask(j, getIndex(minX, chunkWidth), getIndex(minY, chunkHeight)), 0,
+                    0);
+        }
+    }
+    
+    /**
+     * Destroys a chunk but keeps its packed contents around in case it is needed again.
+     */
+    private void evict(TiledMap chunk) {
+        ChunkLayer layer = (ChunkLayer) chunk.getLayers().get(0);
+        evicted.put(ChunkSnapshot.key(layer.getWorldX(), layer.getWorldY()),
+                ChunkSnapshot.of(chunk, entities.getSpecs(layer.getWorldX(), layer.getWorldY())));
+        destroy(chunk);
+    }
+    
+    /**
+     * Destroys a chunk that left the grid sideways, writing it straight to the store.
+     */
+    private void archive(TiledMap chunk) {
+        ChunkLayer layer = (ChunkLayer) chunk.getLayers().get(0);
+        store.put(ChunkSnapshot.key(layer.getWorldX(), layer.getWorldY()),
+                ChunkSnapshot.of(chunk, entities.getSpecs(layer.getWorldX(), layer.getWorldY())));
+        destroy(chunk);
+    }
+    
+    /**
+     * Switches the chunk's bodies and entities on or off by its distance from the position.
+     */
+    private void updateActivation(TiledMap chunk, Vector2 position) {
+        if (chunk == null) {
+            return;
+        }
+        
+        ChunkLayer first = (ChunkLayer) chunk.getLayers().get(0);
+        float dx = Math.max(0, Math.max(first.getWorldX() - position.x,
+                position.x - (first.getWorldX() + chunkWidth)));
+        float dy = Math.max(0, Math.max(first.getWorldY() - position.y,
+                position.y - (first.getWorldY() + chunkHeight)));
+        boolean active = dx * dx + dy * dy <= ACTIVATION_RADIUS * ACTIVATION_RADIUS;
+        if (first.isActive() == active) {
+            return;
+        }
+        
+        for (MapLayer layer : chunk.getLayers()) {
+            ((ChunkLayer) layer).setActive(active);
+        }
+        entities.setActive(first.getWorldX(), first.getWorldY(), active);
+    }
+    
+    private void destroy(TiledMap chunk) {
+        ChunkLayer first = (ChunkLayer) chunk.getLayers().get(0);
+        entities.close(first.getWorldX(), first.getWorldY());
+        for (MapLayer layer : chunk.getLayers()) {
+            ((ChunkLayer) layer).destroy();
+        }
+        generator.getChunkPool().free(chunk);
+    }
+    
+    /**
+     * Hands a batch to the worker.  It starts from what is currently committed, laid out in
+     * logical order and offset by the given rows and columns, so a batch for a shift sees the
+     * grid as it will be once the shift is done.  Nothing moves while a batch is in flight.
+     */
+    private void submit(Callable<Array<GeneratedChunk>> task, int rowShift, int colShift) {
         for (int i = 0; i < CHUNKS; i++) {
-            for (int j = 0; j < CHUNKS; j++) {
-                int x = minX - chunkWidth + j * chunkWidth;
-                int y = minY - chunkHeight + i * chunkHeight;
-                renderer.rect(x, y, chunkWidth, chunkHeight);
+            for (int j = 0; j < staging[i].length; j++) {
+                staging[i][j] = getLogical(i + rowShift, j + colShift);
             }
         }
+        pending = executor.submit(task);
+    }
+    
+    /**
+     * The chunk at the given logical position, counting prefetched columns past the grid, or
+     * null if there is none.
+     */
+    private TiledMap getLogical(int i, int j) {
+        if (i < 0 || i >= CHUNKS || j < 0) {
+            return null;
+        }
+        if (j < CHUNKS) {
+            return getChunk(i, j);
+        }
+        return j - CHUNKS < prefetched.size ? prefetched.get(j - CHUNKS)[i] : null;
+    }
+    
+    /**
+     * Collects a finished batch and commits at most one chunk from it.  Once the batch is all in,
+     * finishes the shift waiting on it if the player is far enough along, or drops it if the
+     * player turned back.
+     */
+    private void poll(Vector2 position) {
+        if (pending != null && pending.isDone()) {
+            generated.addAll(await(pending));
+            pending = null;
+        }
+        if (generated.size > 0) {
+            commit(generated.removeIndex(0));
+        }
+        if (shift != null && pending == null && generated.size == 0) {
+            if (isShiftDue(position)) {
+                finishShift();
+            } else if (isShiftStale(position)) {
+                cancelShift();
+            }
+        }
+    }
+    
+    private static Array<GeneratedChunk> await(Future<Array<GeneratedChunk>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new GdxRuntimeException("Interrupted waiting for chunk generation", ex);
+        } catch (ExecutionException ex) {
+            throw new GdxRuntimeException("Failed generating chunks", ex.getCause());
+        }
+    }
+    
+    private class ColumnTask implements Callable<Array<GeneratedChunk>> {
+        private final int j;
+        private final int chunkX;
+        private final int chunkY;
         
-        renderer.setColor(1, 0, 1, 1);
-        int startX = minX - chunkWidth;
-        int startY = minY;
-        renderer.line(startX, startY + chunkHeight + chunkHeight / 2, startX + getWidth(), startY + chunkHeight + chunkHeight / 2);
-        renderer.line(startX, startY - chunkHeight / 2, startX + getWidth(), startY - chunkHeight / 2);
-        
-        renderer.setColor(1, 0, 0, 1);
-        renderer.rect(minX - chunkWidth, minY - chunkHeight, getWidth(), getHeight());
+        public ColumnTask(int j, int chunkX, int chunkY) {
+            this.j = j;
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+        }
         
-        renderer.end();
+        @Override
+        public Array<GeneratedChunk> call() {
+            if (j > 0) {
+                // keep the terrain under this column and everything left of it in the grid
+                generator.removeVertices((j + 1) * chunkWidth);
+            }
+            Array<GeneratedChunk> result = new Array<GeneratedChunk>();
+            for (int i = CHUNKS - 1; i >= 0; i--) {
+                result.add(generate(i, j, chunkX, chunkY));
+            }
+            return result;
+        }
     }
     
-    private int getIndex(float a, int length) {
-        return (int) Math.floor(a / length);
+    private class RowTask implements Callable<Array<GeneratedChunk>> {
+        private final int i;
+        private final int chunkX;
+        private final int chunkY;
+        private final int columns;
+        
+        public RowTask(int i, int chunkX, int chunkY, int columns) {
+            this.i = i;
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.columns = columns;
+        }
+        
+        @Override
+        public Array<GeneratedChunk> call() {
+            Array<GeneratedChunk> result = new Array<GeneratedChunk>();
+            for (int j = 0; j < columns; j++) {
+                result.add(generate(i, j, chunkX, chunkY));
+            }
+            return result;
+        }
     }
 
-    private TiledMap generate(int i, int j, int chunkX, int chunkY) {
-        return generator.generate(i, j,
-                (chunkX + j) * chunkWidth - chunkWidth,
-                (chunkY + i) * chunkHeight - chunkHeight);
+    private enum Shift {
+        Left, Up, Down
     }
 
     private class ProceduralLayer extends TiledMapTileLayer {
@@ -228,32 +721,32 @@ public class ProceduralTiledMap extends TiledMap {
             this.index = index;
         }
 
+        /**
+         * Called for every visible tile each frame, so sticks to integer arithmetic.
+         */
         @Override
         public Cell getCell(int x, int y) {
             // adjust for shifting
-            x -= minX;
-            y -= minY;
+            x -= minX - chunkWidth;
+            y -= minY - chunkHeight;
 
-            x += chunkWidth;
-            y += chunkHeight;
-
-            // get relevant chunk
-            int chunkX = getIndex(x, chunkWidth);
-            int chunkY = getIndex(y, chunkHeight);
-
-            // handle out of bounds
-            if (chunkX < 0 || chunkY < 0 || chunkX >= CHUNKS || chunkY >= CHUNKS) {
+            // handle out of bounds, after which the division below can't go negative
+            if (x < 0 || y < 0 || x >= chunkWidth * CHUNKS || y >= chunkHeight * CHUNKS) {
                 return null;
             }
 
-            // check for layer existence
-            if (chunks[chunkY][chunkX].getLayers().getCount() <= index) {
+            // get relevant chunk
+            int chunkX = x / chunkWidth;
+            int chunkY = y / chunkHeight;
+            TiledMap chunk = getChunk(chunkY, chunkX);
+
+            // check for chunk and layer existence, chunks are only missing during construction
+            if (chunk == null || chunk.getLayers().getCount() <= index) {
                 return null;
             }
 
             // return the cell within chunk
-            TiledMapTileLayer layer = (TiledMapTileLayer) chunks[chunkY][chunkX].getLayers().get(
-                    index);
+            TiledMapTileLayer layer = (TiledMapTileLayer) chunk.getLayers().get(index);
             int tileX = x - chunkX * chunkWidth;
             int tileY = y - chunkY * chunkHeight;
             return layer.getCell(tileX, tileY);
@@ -21,18 +21,417 @@ import static com.badlogic.gdx.graphics.g2d.Batch.Y2;
 import static com.badlogic.gdx.graphics.g2d.Batch.Y3;
 import static com.badlogic.gdx.graphics.g2d.Batch.Y4;
 
+import static com.eldritch.hydrok.util.Settings.CACHE_CHUNK_TEXTURES;
+import static com.eldritch.hydrok.util.Settings.CHUNKS;
+
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.maps.MapLayer;
 import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.math.Matrix4;
 
+/**
+ * Draws the procedural map from geometry baked once per chunk layer into a {@link SpriteCache},
+ * instead of rebuilding every visible tile each frame.  A layer is baked the first time it is
+ * drawn after its cells change, which for most layers means once, right after commit.
+ * 
+ * The cache holds a fixed number of slots, each big enough for a full layer.  Slots stay with
+ * their layer while it is pooled and reused, and when they run out the one drawn longest ago is
+ * taken over.
+ * 
+ * With {@link com.eldritch.hydrok.util.Settings#CACHE_CHUNK_TEXTURES} set, the slots are
+ * framebuffers instead.  All of a chunk's layers are rendered into one, again only when its
+ * cells change, and each visible chunk is then drawn as a single textured quad.
+ */
 public class ProceduralTiledMapRenderer extends OrthogonalTiledMapRenderer {
+	// twice what the visible grid needs, so chunks sliding out and back don't thrash
+	private static final int SLOTS_PER_LAYER = CHUNKS * CHUNKS * 2;
+	// the cache isn't indexed, so each tile goes in as two triangles of five floats a vertex
+	private static final int TILE_SIZE = 30;
+	private static final float[] EMPTY = new float[TILE_SIZE];
+	
+	// the visible grid plus the next row or column coming into view
+	private static final int BUFFERS = CHUNKS * (CHUNKS + 1);
+	
+	private final ProceduralTiledMap proceduralMap;
+	private final SpriteCache cache;
+	private final FrameBuffer[] buffers;
+	private final Matrix4 view = new Matrix4();
+	private final Matrix4 chunkView = new Matrix4();
+	private final float[] triangles = new float[TILE_SIZE];
+	private final int tilesPerSlot;
+	private final ChunkLayer[] owners;
+	private final int[] lastDrawn;
+	private final int[] visible;
+	private int slots = 0;
+	private int frame = 0;
+	private int drawCalls = 0;
+	
 	public ProceduralTiledMapRenderer(ProceduralTiledMap map, float scale) {
 		super(map, scale);
+		this.proceduralMap = map;
+		this.tilesPerSlot = map.getChunkWidth() * map.getChunkHeight();
+		
+		int layers = map.getLayers().getCount();
+		this.visible = new int[CHUNKS * CHUNKS * layers];
+		if (CACHE_CHUNK_TEXTURES) {
+			// slots belong to the chunk's first layer
+			this.owners = new ChunkLayer[BUFFERS];
+			this.buffers = new FrameBuffer[BUFFERS];
+			this.cache = null;
+		} else {
+			this.owners = new ChunkLayer[SLOTS_PER_LAYER * layers];
+			this.buffers = null;
+			this.cache = new SpriteCache(owners.length * tilesPerSlot, false);
+		}
+		this.lastDrawn = new int[owners.length];
+	}
+	
+	@Override
+	public void render() {
+		frame++;
+		drawCalls = 0;
+		if (buffers != null) {
+			renderBuffers();
+			return;
+		}
+		
+		// baking has to finish before the cache starts drawing
+		int count = 0;
+		for (int index = 0; index < map.getLayers().getCount(); index++) {
+			MapLayer mapLayer = map.getLayers().get(index);
+			if (!mapLayer.isVisible()) {
+				continue;
+			}
+			for (int i = 0; i < CHUNKS; i++) {
+				for (int j = 0; j < CHUNKS; j++) {
+					ChunkLayer layer = proceduralMap.getChunkLayer(i, j, index);
+					if (layer != null && !layer.isEmpty() && isVisible(layer)) {
+						int id = bake(layer, mapLayer.getOpacity());
+						if (id >= 0) {
+							lastDrawn[id] = frame;
+							visible[count++] = id;
+						}
+					}
+				}
+			}
+		}
+		
+		if (count == 0) {
+			return;
+		}
+		
+		Gdx.gl.glEnable(GL20.GL_BLEND);
+		Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		cache.setProjectionMatrix(spriteBatch.getProjectionMatrix());
+		cache.begin();
+		for (int k = 0; k < count; k++) {
+			cache.draw(visible[k]);
+		}
+		cache.end();
+		Gdx.gl.glDisable(GL20.GL_BLEND);
+		drawCalls = cache.renderCalls;
+	}
+	
+	/**
+	 * Number of draw calls made by the last {@link #render()}.
+	 */
+	public int getDrawCalls() {
+		return drawCalls;
+	}
+	
+	@Override
+	public void dispose() {
+		if (cache != null) {
+			cache.dispose();
+		}
+		if (buffers != null) {
+			for (int k = 0; k < slots; k++) {
+				buffers[k].dispose();
+			}
+		}
+		super.dispose();
+	}
+	
+	private void renderBuffers() {
+		// a framebuffer can't be rendered into in the middle of a batch, so do that first
+		int count = 0;
+		for (int i = 0; i < CHUNKS; i++) {
+			for (int j = 0; j < CHUNKS; j++) {
+				ChunkLayer base = proceduralMap.getChunkLayer(i, j, 0);
+				if (base != null && isVisible(base)) {
+					int id = paint(i, j, base);
+					if (id >= 0) {
+						lastDrawn[id] = frame;
+						visible[count++] = id;
+					}
+				}
+			}
+		}
+		
+		if (count == 0) {
+			return;
+		}
+		
+		// tiles were blended into the buffers already, so their colors come premultiplied
+		spriteBatch.begin();
+		spriteBatch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		for (int k = 0; k < count; k++) {
+			ChunkLayer base = owners[visible[k]];
+			Texture texture = buffers[visible[k]].getColorBufferTexture();
+			float tileWidth = base.getTileWidth() * unitScale;
+			float tileHeight = base.getTileHeight() * unitScale;
+			
+			// framebuffer textures are upside down
+			spriteBatch.draw(texture, base.getWorldX() * tileWidth, base.getWorldY() * tileHeight,
+					(base.getWidth() + 1) * tileWidth, (base.getHeight() + 1) * tileHeight,
+					0, 0, texture.getWidth(), texture.getHeight(), false, true);
+		}
+		spriteBatch.end();
+		spriteBatch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		drawCalls = spriteBatch.renderCalls;
+	}
+	
+	/**
+	 * Returns the slot whose framebuffer holds the chunk's layers, rendering them into it first
+	 * if any of their cells changed, or -1 if the chunk has nothing to draw.
+	 */
+	private int paint(int i, int j, ChunkLayer base) {
+		int layers = map.getLayers().getCount();
+		boolean dirty = false;
+		boolean empty = true;
+		for (int index = 0; index < layers; index++) {
+			ChunkLayer layer = proceduralMap.getChunkLayer(i, j, index);
+			if (layer != null) {
+				dirty |= layer.isCacheDirty();
+				empty &= layer.isEmpty();
+			}
+		}
+		
+		int id = base.getCacheId();
+		if (!dirty) {
+			return empty ? -1 : id;
+		}
+		for (int index = 0; index < layers; index++) {
+			ChunkLayer layer = proceduralMap.getChunkLayer(i, j, index);
+			if (layer != null) {
+				layer.setCacheDirty(false);
+			}
+		}
+		if (empty) {
+			return -1;
+		}
+		
+		// tiles draw right and up from their cell, so leave one extra cell for overhang on those sides
+		int width = (int) ((base.getWidth() + 1) * base.getTileWidth());
+		int height = (int) ((base.getHeight() + 1) * base.getTileHeight());
+		if (id < 0) {
+			id = claim(base);
+			if (id == slots) {
+				buffers[id] = new FrameBuffer(Format.RGBA8888, width, height, false);
+				slots++;
+			}
+		}
+		
+		float tileWidth = base.getTileWidth() * unitScale;
+		float tileHeight = base.getTileHeight() * unitScale;
+		chunkView.setToOrtho2D(base.getWorldX() * tileWidth, base.getWorldY() * tileHeight,
+				(base.getWidth() + 1) * tileWidth, (base.getHeight() + 1) * tileHeight);
+		view.set(spriteBatch.getProjectionMatrix());
+		
+		FrameBuffer buffer = buffers[id];
+		buffer.begin();
+		Gdx.gl.glClearColor(0, 0, 0, 0);
+		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+		spriteBatch.setProjectionMatrix(chunkView);
+		
+		// blend colors as usual but add up coverage in alpha, so the buffer comes out
+		// premultiplied; -1 stops the batch from setting its own blend function
+		spriteBatch.setBlendFunction(-1, -1);
+		Gdx.gl.glBlendFuncSeparate(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA, GL20.GL_ONE,
+				GL20.GL_ONE_MINUS_SRC_ALPHA);
+		spriteBatch.begin();
+		for (int index = 0; index < layers; index++) {
+			MapLayer mapLayer = map.getLayers().get(index);
+			ChunkLayer layer = proceduralMap.getChunkLayer(i, j, index);
+			if (layer != null && mapLayer.isVisible()) {
+				float color = Color.toFloatBits(1, 1, 1, mapLayer.getOpacity());
+				for (int row = 0; row < layer.getHeight(); row++) {
+					long occupied = layer.getOccupied(row);
+					while (occupied != 0) {
+						int col = Long.numberOfTrailingZeros(occupied);
+						occupied &= occupied - 1;
+						spriteBatch.draw(setVertices(layer, col, row, color), vertices, 0, 20);
+					}
+				}
+			}
+		}
+		spriteBatch.end();
+		buffer.end();
+		spriteBatch.setBlendFunction(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+		spriteBatch.setProjectionMatrix(view);
+		
+		base.setCacheId(id);
+		return id;
+	}
+	
+	private boolean isVisible(ChunkLayer layer) {
+		final float layerTileWidth = layer.getTileWidth() * unitScale;
+		final float layerTileHeight = layer.getTileHeight() * unitScale;
+		
+		// tiles draw right and up from their cell and can be wider or taller than it, so allow one
+		// extra cell of overhang on those sides only
+		float x = layer.getWorldX() * layerTileWidth;
+		float y = layer.getWorldY() * layerTileHeight;
+		return x < viewBounds.x + viewBounds.width
+				&& x + (layer.getWidth() + 1) * layerTileWidth > viewBounds.x
+				&& y < viewBounds.y + viewBounds.height
+				&& y + (layer.getHeight() + 1) * layerTileHeight > viewBounds.y;
+	}
+	
+	/**
+	 * Returns the cache id holding the layer's geometry, rebaking it first if any cell changed,
+	 * or -1 if the layer has nothing to draw.
+	 */
+	private int bake(ChunkLayer layer, float opacity) {
+		if (!layer.isCacheDirty()) {
+			return layer.getCacheId();
+		}
+		layer.setCacheDirty(false);
+		
+		int tiles = layer.getCellCount();
+		int id = layer.getCacheId();
+		if (id < 0) {
+			if (tiles == 0) {
+				return -1;
+			}
+			id = claim(layer);
+		}
+		
+		boolean created = id == slots;
+		if (created) {
+			cache.beginCache();
+		} else {
+			cache.beginCache(id);
+		}
+		
+		Texture texture = addTiles(layer, Color.toFloatBits(1, 1, 1, opacity));
+		if (created) {
+			// later bakes can only reuse the slot if it starts out at full size
+			for (int k = tiles; k < tilesPerSlot; k++) {
+				cache.add(texture, EMPTY, 0, EMPTY.length);
+			}
+			slots++;
+		}
+		cache.endCache();
+		
+		layer.setCacheId(id);
+		return id;
+	}
+	
+	/**
+	 * Finds a slot for the layer: a new one while there is room, otherwise the one drawn longest
+	 * ago, whose owner will bake again when it next needs to be drawn.
+	 */
+	private int claim(ChunkLayer layer) {
+		int id = slots;
+		if (slots == owners.length) {
+			id = 0;
+			for (int k = 1; k < owners.length; k++) {
+				if (lastDrawn[k] < lastDrawn[id]) {
+					id = k;
+				}
+			}
+			owners[id].setCacheId(-1);
+			owners[id].setCacheDirty(true);
+		}
+		owners[id] = layer;
+		return id;
+	}
+	
+	/**
+	 * Adds a pair of triangles for every tile in the layer to the cache being built, in world
+	 * units.  Returns the texture of the last tile added.
+	 */
+	private Texture addTiles(ChunkLayer layer, float color) {
+		Texture texture = null;
+		for (int row = 0; row < layer.getHeight(); row++) {
+			// visit set cells only, lowest column first
+			long occupied = layer.getOccupied(row);
+			while (occupied != 0) {
+				int col = Long.numberOfTrailingZeros(occupied);
+				occupied &= occupied - 1;
+				
+				texture = setVertices(layer, col, row, color);
+				
+				// corners 1, 2, 3 and then 3, 4, 1
+				System.arraycopy(vertices, X1, triangles, 0, 15);
+				System.arraycopy(vertices, X3, triangles, 15, 10);
+				System.arraycopy(vertices, X1, triangles, 25, 5);
+				cache.add(texture, triangles, 0, TILE_SIZE);
+			}
+		}
+		return texture;
+	}
+	
+	/**
+	 * Fills in the vertices for the quad of a set cell, in world units, and returns its texture.
+	 */
+	private Texture setVertices(ChunkLayer layer, int col, int row, float color) {
+		final float layerTileWidth = layer.getTileWidth() * unitScale;
+		final float layerTileHeight = layer.getTileHeight() * unitScale;
+		final float[] vertices = this.vertices;
+		
+		TiledMapTile tile = layer.getTile(col, row);
+		TextureRegion region = tile.getTextureRegion();
+		float x1 = (layer.getWorldX() + col) * layerTileWidth;
+		float y1 = (layer.getWorldY() + row) * layerTileHeight;
+		float x2 = x1 + region.getRegionWidth() * unitScale;
+		float y2 = y1 + region.getRegionHeight() * unitScale;
+
+		float u1 = region.getU();
+		float v1 = region.getV2();
+		float u2 = region.getU2();
+		float v2 = region.getV();
+
+		vertices[X1] = x1;
+		vertices[Y1] = y1;
+		vertices[C1] = color;
+		vertices[U1] = u1;
+		vertices[V1] = v1;
+
+		vertices[X2] = x1;
+		vertices[Y2] = y2;
+		vertices[C2] = color;
+		vertices[U2] = u1;
+		vertices[V2] = v2;
+
+		vertices[X3] = x2;
+		vertices[Y3] = y2;
+		vertices[C3] = color;
+		vertices[U3] = u2;
+		vertices[V3] = v2;
+
+		vertices[X4] = x2;
+		vertices[Y4] = y1;
+		vertices[C4] = color;
+		vertices[U4] = u2;
+		vertices[V4] = v1;
+		return region.getTexture();
 	}
 	
+	/**
+	 * Draws a single layer tile by tile, for callers that render layers by index.
+	 */
 	@Override
 	public void renderTileLayer (TiledMapTileLayer layer) {
 		final Color batchColor = spriteBatch.getColor();
@@ -2,41 +2,112 @@ package com.eldritch.hydrok.level;
 
 import java.util.Random;
 
+/**
+ * Random numbers addressed by position rather than drawn in sequence.  Each decision first
+ * seeks to a (worldX, worldY, purpose) key, and the draws that follow are a pure function of the
+ * seed and that key, so a chunk comes out the same no matter when, where or in what order it is
+ * generated.
+ *
+ * The seek position is mutable state, so each thread generating chunks needs its own instance;
+ * instances with the same seed produce the same world.
+ */
 public class Randomizer {
-    private final Random rand;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
     private final long seed;
     private float x;
-    
+    private long state;
+    private long counter;
+
     public Randomizer() {
         this(new Random().nextLong());
     }
-    
+
     public Randomizer(long seed) {
-        rand = new Random(seed);
         this.seed = seed;
+        this.state = mix(seed);
     }
-    
+
     public long getSeed() {
         return seed;
     }
-    
+
+    /**
+     * Sets the distance used to bias {@link #flip(double)}.
+     */
     public void update(float x) {
         this.x = x;
     }
-    
+
+    /**
+     * Moves to the sequence of draws for the given cell and purpose.
+     */
+    public void seek(int worldX, int worldY, Purpose purpose) {
+        long h = mix(seed + (purpose.ordinal() + 1) * GOLDEN_GAMMA);
+        h = mix(h + worldX * GOLDEN_GAMMA);
+        state = mix(h + worldY);
+        counter = 0;
+    }
+
     public boolean fairFlip(double prob) {
         return getRandom() < prob;
     }
-    
+
     public boolean flip(double baseProbability) {
         return getRandom() < baseProbability * getDistanceBias();
     }
-    
+
+    /**
+     * How many flips at the given probability fail before one succeeds, found with a single
+     * draw.  Lets rare placements jump straight to the next hit instead of flipping per cell.
+     */
+    public int fairSkip(double prob) {
+        if (prob >= 1) {
+            return 0;
+        }
+        if (prob <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        double skip = Math.floor(Math.log(1 - getRandom()) / Math.log(1 - prob));
+        return skip < Integer.MAX_VALUE ? (int) skip : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Like {@link #fairSkip(double)}, at the odds {@link #flip(double)} would use.
+     */
+    public int skip(double baseProbability) {
+        return fairSkip(baseProbability * getDistanceBias());
+    }
+
+    /**
+     * Uniform choice in [0, n).
+     */
+    public int choose(int n) {
+        return (int) (getRandom() * n);
+    }
+
     public double getRandom() {
-        return rand.nextDouble();
+        // splitmix64 step from the seeked state
+        counter++;
+        long bits = mix(state + counter * GOLDEN_GAMMA);
+        return (bits >>> 11) * DOUBLE_UNIT;
     }
-    
+
     public double getDistanceBias() {
         return x / (500 + Math.abs(x));
     }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Separates the draws for different kinds of decisions made about the same cell.
+     */
+    public enum Purpose {
+        Terrain, Water, Obstacle, Wall, Rope, Activator, Entity, Perch
+    }
 }
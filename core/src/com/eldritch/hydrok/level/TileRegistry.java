@@ -0,0 +1,46 @@
+package com.eldritch.hydrok.level;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+
+/**
+ * Assigns each tile a small integer id so chunk layers can store cells as packed ints.  Tiles
+ * are registered by the generator thread as they are first loaded and looked up by the render
+ * thread, so the table is copied on write.  Id 0 is reserved for "no tile".
+ */
+public class TileRegistry {
+    public static final int MAX_TILES = 0xFFFF;
+
+    private volatile TiledMapTile[] tiles = new TiledMapTile[1];
+
+    public synchronized int register(TiledMapTile tile) {
+        if (get(tile.getId()) == tile) {
+            // lost a race with another registration
+            return tile.getId();
+        }
+
+        int id = tiles.length;
+        if (id > MAX_TILES) {
+            throw new IllegalStateException("Too many tiles registered: " + id);
+        }
+
+        TiledMapTile[] next = new TiledMapTile[id + 1];
+        System.arraycopy(tiles, 0, next, 0, id);
+        next[id] = tile;
+        tile.setId(id);
+        tiles = next;
+        return id;
+    }
+
+    /**
+     * Id of the tile, registering it first if it hasn't been seen yet.
+     */
+    public int getId(TiledMapTile tile) {
+        int id = tile.getId();
+        return get(id) == tile ? id : register(tile);
+    }
+
+    public TiledMapTile get(int id) {
+        TiledMapTile[] current = tiles;
+        return id > 0 && id < current.length ? current[id] : null;
+    }
+}
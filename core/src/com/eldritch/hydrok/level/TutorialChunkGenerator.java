@@ -3,14 +3,16 @@ package com.eldritch.hydrok.level;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.physics.box2d.World;
 import com.eldritch.hydrok.level.WorldCell.Type;
+import com.eldritch.hydrok.util.AssetRegistry;
 import com.eldritch.hydrok.util.HydrokContactListener;
 
 public class TutorialChunkGenerator extends MapChunkGenerator {
     private final TutorialProgress progress;
     
     public TutorialChunkGenerator(HydrokContactListener contactListener, TiledMap[][] chunks,
-            World world, Randomizer rand, TutorialProgress progress, int width, int height) {
-        super(contactListener, chunks, world, rand, width, height);
+            World world, Randomizer rand, AssetRegistry assets, TutorialProgress progress,
+            int width, int height) {
+        super(contactListener, chunks, world, rand, assets, width, height);
         this.progress = progress;
     }
 
@@ -37,15 +39,16 @@ public class TutorialChunkGenerator extends MapChunkGenerator {
     public static class TutorialChunkGeneratorFactory extends MapChunkGeneratorFactory {
         private final TutorialProgress progress;
 
-        public TutorialChunkGeneratorFactory(Randomizer randomizer, TutorialProgress progress) {
-            super(randomizer);
+        public TutorialChunkGeneratorFactory(Randomizer randomizer, AssetRegistry assets,
+                TutorialProgress progress) {
+            super(randomizer, assets);
             this.progress = progress;
         }
 
         public TutorialChunkGenerator createGenerator(HydrokContactListener contactListener,
                 TiledMap[][] chunks, World world, int width, int height) {
-            return new TutorialChunkGenerator(contactListener, chunks, world, randomizer, progress,
-                    width, height);
+            return new TutorialChunkGenerator(contactListener, chunks, world, randomizer, assets,
+                    progress, width, height);
         }
     }
 }
@@ -8,16 +8,29 @@ import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
 import com.badlogic.gdx.math.Vector2;
 
+/**
+ * A single tile in a chunk.  Chunk layers store their cells packed into ints, so outside of the
+ * terrain vertices the generator keeps, a WorldCell is usually a reused view that is only valid
+ * until the next lookup on the same layer.
+ */
 public class WorldCell extends Cell {
-    private final Type type;
-    private final int slope;
-    private final int localX;
-    private final int localY;
-    private final int worldX;
-    private final int worldY;
-    private final float worldHeight;
-    private final Vector2 terrainVector;
-    private WorldCell next = null;
+    private Type type;
+    private int slope;
+    private int localX;
+    private int localY;
+    private int worldX;
+    private int worldY;
+    private float scaleY;
+    private float worldHeight;
+    private Vector2 terrainVector;
+    
+    /**
+     * Creates an empty view, to be filled in by its layer.
+     */
+    WorldCell() {
+        this.type = Type.Filler;
+        this.terrainVector = new Vector2();
+    }
     
     public WorldCell(TiledMapTile tile, int localX, int localY, int worldX, int worldY, Type type) {
         this(tile, localX, localY, worldX, worldY, type, 0);
@@ -32,15 +45,32 @@ public class WorldCell extends Cell {
     }
     
     public WorldCell(TiledMapTile tile, int localX, int localY, int worldX, int worldY, Type type, int slope, float scaleY) {
+        terrainVector = type == Type.Terrain ? new Vector2() : Vector2.Zero;
+        set(tile, localX, localY, worldX, worldY, type, slope, scaleY);
+    }
+    
+    WorldCell set(TiledMapTile tile, int localX, int localY, int worldX, int worldY, Type type, int slope, float scaleY) {
         this.type = type;
         this.slope = slope;
         this.localX = localX;
         this.localY = localY;
         this.worldX = worldX;
         this.worldY = worldY;
-        this.worldHeight = tile != null ? tile.getTextureRegion().getRegionHeight() * SCALE * scaleY : 0;
-        terrainVector = type == Type.Terrain ? new Vector2(worldX, worldY + vy()) : Vector2.Zero;
+        this.scaleY = scaleY;
+        this.worldHeight = getWorldHeight(tile, scaleY);
+        if (terrainVector != Vector2.Zero) {
+            terrainVector.set(worldX, worldY + vy());
+        }
         setTile(tile);
+        return this;
+    }
+    
+    public static float getWorldHeight(TiledMapTile tile, float scaleY) {
+        return tile != null ? tile.getTextureRegion().getRegionHeight() * SCALE * scaleY : 0;
+    }
+    
+    public float getScaleY() {
+        return scaleY;
     }
     
     public float getWorldHeight() {
@@ -64,7 +94,7 @@ public class WorldCell extends Cell {
     }
     
     public Vector2 getTerrainVector() {
-        return terrainVector;
+        return type == Type.Terrain ? terrainVector : Vector2.Zero;
     }
 
     public Type getType() {
@@ -75,18 +105,6 @@ public class WorldCell extends Cell {
         return slope;
     }
     
-    public boolean hasNext() {
-        return next != null;
-    }
-    
-    public void setNext(WorldCell next) {
-        this.next = next;
-    }
-    
-    public WorldCell next() {
-        return next;
-    }
-    
     public boolean matchesSlope(int otherSlope, int otherY) {
         int dy = otherY - worldY;
         if (otherSlope > 0) {
@@ -116,6 +134,4 @@ public class WorldCell extends Cell {
             return maskBits;
         }
     }
-    
-    public static final WorldCell EMPTY = new WorldCell(null, -1, -1, -1, -1, Type.Filler);
 }
@@ -2,14 +2,14 @@ package com.eldritch.hydrok.player;
 
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Animation;
-import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
 import com.eldritch.hydrok.GameScreen;
+import com.eldritch.hydrok.util.RenderQueue;
+import com.eldritch.hydrok.util.RenderQueue.Layer;
 import com.eldritch.hydrok.util.Settings;
 
 public class GasManager extends AbstractPhaseManager {
@@ -57,19 +57,16 @@ public class GasManager extends AbstractPhaseManager {
 	}
 	
 	@Override
-	public void render(OrthogonalTiledMapRenderer renderer) {
-		Vector2 position = getBody().getPosition();
+	public void render(RenderQueue queue) {
+		Vector2 position = queue.getPosition(getBody());
 		
 		float width = getWidth();
         float height = getHeight();
         
-		Batch batch = renderer.getSpriteBatch();
-		batch.begin();
-		batch.setColor(getRedIntensity(), getGreenIntensity(), getBlueIntensity(), 1);
-		batch.draw(animation.getKeyFrame(getStateTime()),
+		queue.setColor(getRedIntensity(), getGreenIntensity(), getBlueIntensity(), 1);
+		queue.draw(Layer.Player, animation.getKeyFrame(getStateTime()),
 				position.x - width / 2, position.y - height / 2, width, height);
-		batch.setColor(Color.WHITE);
-		batch.end();
+		queue.setColor(Color.WHITE);
 	}
 	
 	private float getRedIntensity() {
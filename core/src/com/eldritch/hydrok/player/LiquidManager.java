@@ -3,12 +3,12 @@ package com.eldritch.hydrok.player;
 import static com.eldritch.hydrok.util.Settings.SCALE;
 
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.World;
+import com.eldritch.hydrok.GameScreen;
+import com.eldritch.hydrok.util.RenderQueue;
+import com.eldritch.hydrok.util.RenderQueue.Layer;
 import com.eldritch.hydrok.util.Settings;
 
 public class LiquidManager extends AbstractPhaseManager {
@@ -21,7 +21,7 @@ public class LiquidManager extends AbstractPhaseManager {
 
     public LiquidManager(Player player, World world, int x, int y, float width, float height) {
         super(player, world, x, y, width, height, 0.35f, 0.0f, Settings.BIT_LIQUID);
-        texture = new TextureRegion(new Texture("sprite/liquid.png"));
+        texture = GameScreen.getRegion("sprite/liquid.png");
     }
     
     @Override
@@ -57,20 +57,18 @@ public class LiquidManager extends AbstractPhaseManager {
     }
 
     @Override
-    public void render(OrthogonalTiledMapRenderer renderer) {
-        Vector2 position = getBody().getPosition();
+    public void render(RenderQueue queue) {
+        Vector2 position = queue.getPosition(getBody());
         
         float width = texture.getRegionWidth() * SCALE * scaler.getScaleX();
         float height = texture.getRegionHeight() * SCALE * scaler.getScaleY();
         float intensity = getIntensity();
         float alpha = getAlpha();
 
-        Batch batch = renderer.getSpriteBatch();
-        batch.begin();
-        batch.setColor(intensity, intensity, intensity, alpha);
-        batch.draw(texture, position.x - width / 2, position.y - height / 2, width, height);
-        batch.setColor(Color.WHITE);
-        batch.end();
+        queue.setColor(intensity, intensity, intensity, alpha);
+        queue.draw(Layer.Player, texture, position.x - width / 2, position.y - height / 2, width,
+                height);
+        queue.setColor(Color.WHITE);
     }
     
     private float getIntensity() {
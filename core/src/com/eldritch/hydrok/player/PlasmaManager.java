@@ -1,12 +1,12 @@
 package com.eldritch.hydrok.player;
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.World;
+import com.eldritch.hydrok.GameScreen;
+import com.eldritch.hydrok.util.RenderQueue;
+import com.eldritch.hydrok.util.RenderQueue.Layer;
 import com.eldritch.hydrok.util.Settings;
 
 public class PlasmaManager extends AbstractPhaseManager {
@@ -17,7 +17,7 @@ public class PlasmaManager extends AbstractPhaseManager {
     
     public PlasmaManager(Player player, World world, int x, int y, float width, float height) {
         super(player, world, x, y, width, height, 0.3f, 0, Settings.BIT_PLASMA);
-        texture = new TextureRegion(new Texture("sprite/plasma.png"));
+        texture = GameScreen.getRegion("sprite/plasma.png");
     }
     
     @Override
@@ -39,16 +39,14 @@ public class PlasmaManager extends AbstractPhaseManager {
     }
     
     @Override
-    public void render(OrthogonalTiledMapRenderer renderer) {
+    public void render(RenderQueue queue) {
         Body body = getBody();
-        Vector2 position = body.getPosition();
+        Vector2 position = queue.getPosition(body);
         
         float width = getWidth();
         float height = getHeight();
         
-        Batch batch = renderer.getSpriteBatch();
-        batch.begin();
-        batch.draw(texture, position.x - width / 2, position.y - height / 2, width, height);
-        batch.end();
+        queue.draw(Layer.Player, texture, position.x - width / 2, position.y - height / 2, width,
+                height);
     }
 }
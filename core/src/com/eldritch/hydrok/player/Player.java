@@ -2,9 +2,9 @@ package com.eldritch.hydrok.player;
 
 import static com.eldritch.hydrok.util.Settings.SCALE;
 
+import com.eldritch.hydrok.util.RenderQueue;
 import java.util.EnumMap;
 
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
@@ -14,6 +14,7 @@ import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.eldritch.hydrok.util.ContactTag;
 import com.eldritch.hydrok.util.HydrokContactListener;
 
 public class Player {
@@ -59,7 +60,7 @@ public class Player {
 
         // Create our fixture and attach it to the body
         Fixture fixture = body.createFixture(fixtureDef);
-        fixture.setUserData("player");
+        fixture.setUserData(ContactTag.Player);
 
         // set collision masks
         Filter filter = fixture.getFilterData();
@@ -137,8 +138,8 @@ public class Player {
 		managers.get(phase).update(delta);
 	}
 
-	public void render(OrthogonalTiledMapRenderer renderer) {
-		managers.get(phase).render(renderer);
+	public void render(RenderQueue queue) {
+		managers.get(phase).render(queue);
 	}
 	
 	public float getRelativeTemperature() {
@@ -165,6 +166,14 @@ public class Player {
 		return body.getPosition();
 	}
 	
+	public float getWidth() {
+		return width;
+	}
+	
+	public float getHeight() {
+		return height;
+	}
+	
 	public Vector2 getVelocity() {
 	    return body.getLinearVelocity();
 	}
@@ -241,7 +250,7 @@ public class Player {
 	public static interface PhaseManager {
 		void update(float delta);
 
-		void render(OrthogonalTiledMapRenderer renderer);
+		void render(RenderQueue queue);
 		
 		Player getPlayer();
 
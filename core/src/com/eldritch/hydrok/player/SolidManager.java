@@ -1,13 +1,13 @@
 package com.eldritch.hydrok.player;
 
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.World;
+import com.eldritch.hydrok.GameScreen;
+import com.eldritch.hydrok.util.RenderQueue;
+import com.eldritch.hydrok.util.RenderQueue.Layer;
 import com.eldritch.hydrok.util.Settings;
 
 public class SolidManager extends AbstractPhaseManager {
@@ -19,7 +19,7 @@ public class SolidManager extends AbstractPhaseManager {
 	
 	public SolidManager(Player player, World world, int x, int y, float width, float height) {
 	    super(player, world, x, y, width, height, 0.5f, 0.3f, Settings.BIT_SOLID);
-		texture = new TextureRegion(new Texture("sprite/solid.png"));
+		texture = GameScreen.getRegion("sprite/solid.png");
 	}
 	
 	@Override
@@ -55,21 +55,19 @@ public class SolidManager extends AbstractPhaseManager {
 	}
 	
 	@Override
-	public void render(OrthogonalTiledMapRenderer renderer) {
+	public void render(RenderQueue queue) {
 	    Body body = getBody();
-		Vector2 position = body.getPosition();
+		Vector2 position = queue.getPosition(body);
 		
 		float width = getWidth();
         float height = getHeight();
         float intensity = getIntensity();
 		
-		Batch batch = renderer.getSpriteBatch();
-		batch.begin();
-		batch.setColor(intensity, intensity, intensity, getAlpha());
-		batch.draw(texture, position.x - width / 2, position.y - height / 2, width / 2, height / 2,
-				width, height, 1f, 1f, (float) (body.getAngle() * 180 / Math.PI));
-		batch.setColor(Color.WHITE);
-		batch.end();
+		queue.setColor(intensity, intensity, intensity, getAlpha());
+		queue.draw(Layer.Player, texture, position.x - width / 2, position.y - height / 2,
+				width / 2, height / 2, width, height, 1f, 1f,
+				(float) (queue.getAngle(body) * 180 / Math.PI));
+		queue.setColor(Color.WHITE);
 	}
 	
 	private float getIntensity() {
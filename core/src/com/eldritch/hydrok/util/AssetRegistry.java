@@ -0,0 +1,75 @@
+package com.eldritch.hydrok.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator.FreeTypeFontParameter;
+
+/**
+ * Reference counted access to textures, atlases and fonts.  Everything that needs one acquires
+ * it and releases it when done, and an asset is only disposed once nothing holds it any more.
+ * Textures and atlases are counted by the underlying {@link AssetManager}; generated fonts, which
+ * it can't load, are counted here.
+ *
+ * Screens acquire their assets when they are constructed, which is before the previous screen
+ * is disposed, so assets shared by consecutive screens are handed over rather than reloaded.
+ */
+public class AssetRegistry {
+    private final AssetManager manager;
+    private final Map<String, FontRef> fonts = new HashMap<String, FontRef>();
+
+    public AssetRegistry(AssetManager manager) {
+        this.manager = manager;
+    }
+
+    public <T> T acquire(String fileName, Class<T> type) {
+        // loading something already loaded just adds a reference
+        manager.load(fileName, type);
+        manager.finishLoading();
+        return manager.get(fileName, type);
+    }
+
+    public void release(String fileName) {
+        if (manager.isLoaded(fileName)) {
+            manager.unload(fileName);
+        }
+    }
+
+    public BitmapFont acquireFont(String fileName, int size) {
+        String key = fileName + ":" + size;
+        FontRef ref = fonts.get(key);
+        if (ref == null) {
+            FreeTypeFontGenerator generator = new FreeTypeFontGenerator(
+                    Gdx.files.internal(fileName));
+            FreeTypeFontParameter parameter = new FreeTypeFontParameter();
+            parameter.size = size;
+            ref = new FontRef(generator.generateFont(parameter));
+            generator.dispose();
+            fonts.put(key, ref);
+        }
+        ref.count++;
+        return ref.font;
+    }
+
+    public void releaseFont(String fileName, int size) {
+        String key = fileName + ":" + size;
+        FontRef ref = fonts.get(key);
+        if (ref != null && --ref.count == 0) {
+            ref.font.dispose();
+            fonts.remove(key);
+        }
+    }
+
+    private static class FontRef {
+        private final BitmapFont font;
+        private int count = 0;
+
+        public FontRef(BitmapFont font) {
+            this.font = font;
+        }
+    }
+}
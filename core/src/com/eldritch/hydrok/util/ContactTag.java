@@ -0,0 +1,9 @@
+package com.eldritch.hydrok.util;
+
+/**
+ * Fixture user data for everything that isn't an activator, so contacts can be told apart by
+ * identity instead of comparing strings.
+ */
+public enum ContactTag {
+    Player, Ground, Water
+}
@@ -1,9 +1,5 @@
 package com.eldritch.hydrok.util;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
-
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.Contact;
 import com.badlogic.gdx.physics.box2d.ContactImpulse;
@@ -13,10 +9,15 @@ import com.badlogic.gdx.physics.box2d.Manifold;
 import com.eldritch.hydrok.activator.Activator;
 import com.eldritch.hydrok.player.Player;
 
+/**
+ * Tracks what the player is standing on and triggers activators.  Fixtures are told apart by
+ * their {@link ContactTag} or activator user data, and touching fixtures are counted in small
+ * identity-keyed arrays, so the callbacks allocate nothing once warmed up.
+ */
 public class HydrokContactListener implements ContactListener {
     private final Player player;
-    private final Map<Fixture, Integer> groundContacts = new HashMap<Fixture, Integer>();
-    private final Map<Fixture, Integer> waterContacts = new HashMap<Fixture, Integer>();
+    private final ContactCounter groundContacts = new ContactCounter();
+    private final ContactCounter waterContacts = new ContactCounter();
     
     public HydrokContactListener(Player player) {
         this.player = player;
@@ -31,11 +32,7 @@ public class HydrokContactListener implements ContactListener {
     }
     
     public int getContactCount() {
-        int count = 0;
-        for (Entry<Fixture, Integer> entry : groundContacts.entrySet()) {
-            count += entry.getValue();
-        }
-        return count;
+        return groundContacts.getTotal();
     }
 
     @Override
@@ -50,15 +47,6 @@ public class HydrokContactListener implements ContactListener {
         checkBeginContact(fa);
         checkBeginContact(fb);
     }
-    
-    private boolean checkActivation(Object userData) {
-        if (userData instanceof Activator) {
-            Activator a = (Activator) userData;
-            a.activate(player);
-            return true;
-        }
-        return false;
-    }
 
     @Override
     public void endContact(Contact contact) {
@@ -75,61 +63,28 @@ public class HydrokContactListener implements ContactListener {
     
     public void endContact(Body body) {
         for (Fixture fixture : body.getFixtureList()) {
-            groundContacts.remove(fixture);
+            groundContacts.clear(fixture);
         }
     }
     
     private void checkBeginContact(Fixture fixture) {
         Object userData = fixture.getUserData();
-        if (userData != null) {
-            // ground
-            if (userData.equals("ground")) {
-                addContact(groundContacts, fixture);
-                player.markGrounded();
-            }
-            
-            // water
-            if (userData.equals("water")) {
-                addContact(waterContacts, fixture);
-            }
-            
-            // activator
-            checkActivation(userData);
+        if (userData == ContactTag.Ground) {
+            groundContacts.add(fixture);
+            player.markGrounded();
+        } else if (userData == ContactTag.Water) {
+            waterContacts.add(fixture);
+        } else if (userData instanceof Activator) {
+            ((Activator) userData).activate(player);
         }
     }
     
     private void checkEndContact(Fixture fixture) {
         Object userData = fixture.getUserData();
-        if (userData != null) {
-            // ground
-            if (userData.equals("ground")) {
-                removeContact(groundContacts, fixture);
-            }
-            
-            // water
-            if (userData.equals("water")) {
-                removeContact(waterContacts, fixture);
-            }
-        }
-    }
-    
-    private void addContact(Map<Fixture, Integer> contacts, Fixture fixture) {
-        if (!contacts.containsKey(fixture)) {
-            contacts.put(fixture, 0);
-        }
-        contacts.put(fixture, contacts.get(fixture) + 1);
-    }
-    
-    private void removeContact(Map<Fixture, Integer> contacts, Fixture fixture) {
-        if (!contacts.containsKey(fixture)) {
-            return;
-        }
-        
-        int count = contacts.get(fixture);
-        if (count <= 1) {
-            contacts.remove(fixture);
-        } else {
-            contacts.put(fixture, count - 1);
+        if (userData == ContactTag.Ground) {
+            groundContacts.remove(fixture);
+        } else if (userData == ContactTag.Water) {
+            waterContacts.remove(fixture);
         }
     }
 
@@ -140,4 +95,74 @@ public class HydrokContactListener implements ContactListener {
     @Override
     public void postSolve(Contact contact, ContactImpulse impulse) {
     }
+    
+    /**
+     * Number of contacts per fixture.  The player only ever touches a handful of fixtures at
+     * once, so a linear scan by identity beats hashing.
+     */
+    private static class ContactCounter {
+        private Fixture[] fixtures = new Fixture[8];
+        private int[] counts = new int[8];
+        private int size = 0;
+        
+        public void add(Fixture fixture) {
+            int i = indexOf(fixture);
+            if (i < 0) {
+                if (size == fixtures.length) {
+                    Fixture[] grownFixtures = new Fixture[size * 2];
+                    int[] grownCounts = new int[size * 2];
+                    System.arraycopy(fixtures, 0, grownFixtures, 0, size);
+                    System.arraycopy(counts, 0, grownCounts, 0, size);
+                    fixtures = grownFixtures;
+                    counts = grownCounts;
+                }
+                i = size++;
+                fixtures[i] = fixture;
+                counts[i] = 0;
+            }
+            counts[i]++;
+        }
+        
+        public void remove(Fixture fixture) {
+            int i = indexOf(fixture);
+            if (i >= 0 && --counts[i] <= 0) {
+                removeIndex(i);
+            }
+        }
+        
+        public void clear(Fixture fixture) {
+            int i = indexOf(fixture);
+            if (i >= 0) {
+                removeIndex(i);
+            }
+        }
+        
+        public boolean isEmpty() {
+            return size == 0;
+        }
+        
+        public int getTotal() {
+            int total = 0;
+            for (int i = 0; i < size; i++) {
+                total += counts[i];
+            }
+            return total;
+        }
+        
+        private int indexOf(Fixture fixture) {
+            for (int i = 0; i < size; i++) {
+                if (fixtures[i] == fixture) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        private void removeIndex(int i) {
+            size--;
+            fixtures[i] = fixtures[size];
+            counts[i] = counts[size];
+            fixtures[size] = null;
+        }
+    }
 }
@@ -0,0 +1,167 @@
+package com.eldritch.hydrok.util;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.eldritch.hydrok.util.RenderQueue.Layer;
+
+/**
+ * Every live particle in the game, held in preallocated parallel arrays so emitting, updating and
+ * drawing them allocates nothing.  Particles drift from where they were emitted, fading as they
+ * go, and die once they have travelled their range or faded out.  When the buffer is full new
+ * particles are dropped, so the cost is capped however many effects are on the map.
+ *
+ * Each effect emits through its own {@link Emitter}, which counts its live particles so the
+ * effect can keep itself topped up, and is killed with its particles when the effect goes away.
+ */
+public class ParticleSystem {
+    private final float[] x;
+    private final float[] y;
+    private final float[] dx;
+    private final float[] dy;
+    private final float[] vx;
+    private final float[] vy;
+    private final float[] range2;
+    private final float[] alpha;
+    private final float[] fade;
+    private final float[] width;
+    private final float[] height;
+    private final TextureRegion[] region;
+    private final Emitter[] owner;
+    private int size = 0;
+
+    public ParticleSystem(int capacity) {
+        x = new float[capacity];
+        y = new float[capacity];
+        dx = new float[capacity];
+        dy = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        range2 = new float[capacity];
+        alpha = new float[capacity];
+        fade = new float[capacity];
+        width = new float[capacity];
+        height = new float[capacity];
+        region = new TextureRegion[capacity];
+        owner = new Emitter[capacity];
+    }
+
+    public Emitter newEmitter() {
+        return new Emitter();
+    }
+
+    public void update(float delta) {
+        for (int i = size - 1; i >= 0; i--) {
+            dx[i] += vx[i] * delta;
+            dy[i] += vy[i] * delta;
+            alpha[i] = Math.max(0, alpha[i] - fade[i] * delta);
+            if (dx[i] * dx[i] + dy[i] * dy[i] > range2[i] || alpha[i] == 0) {
+                remove(i);
+            }
+        }
+    }
+
+    /**
+     * Queues every particle that could be seen within the given view, in one pass.
+     */
+    public void render(RenderQueue queue, Rectangle view) {
+        for (int i = 0; i < size; i++) {
+            float left = x[i] + dx[i] - width[i] / 2;
+            float bottom = y[i] + dy[i] - height[i] / 2;
+            if (left < view.x + view.width && left + width[i] > view.x
+                    && bottom < view.y + view.height && bottom + height[i] > view.y) {
+                queue.setColor(1, 1, 1, alpha[i]);
+                queue.draw(Layer.Entity, region[i], left, bottom, width[i], height[i]);
+            }
+        }
+        queue.setColor(Color.WHITE);
+    }
+
+    /**
+     * Removes every particle.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            owner[i].live = 0;
+            region[i] = null;
+            owner[i] = null;
+        }
+        size = 0;
+    }
+
+    private void remove(int i) {
+        owner[i].live--;
+
+        // fill the hole with the last particle to keep the arrays packed
+        int last = --size;
+        x[i] = x[last];
+        y[i] = y[last];
+        dx[i] = dx[last];
+        dy[i] = dy[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        range2[i] = range2[last];
+        alpha[i] = alpha[last];
+        fade[i] = fade[last];
+        width[i] = width[last];
+        height[i] = height[last];
+        region[i] = region[last];
+        owner[i] = owner[last];
+        region[last] = null;
+        owner[last] = null;
+    }
+
+    /**
+     * Emits particles for a single effect.
+     */
+    public class Emitter {
+        private int live = 0;
+
+        /**
+         * Emits a particle centred on the given point, plus an offset it drifts away from at the
+         * given velocity.  Returns false if the buffer is full and the particle was dropped.
+         */
+        public boolean emit(TextureRegion texture, float px, float py, float offsetX,
+                float offsetY, float velocityX, float velocityY, float range, float fadeRate,
+                float w, float h) {
+            if (size == owner.length) {
+                return false;
+            }
+
+            int i = size++;
+            x[i] = px;
+            y[i] = py;
+            dx[i] = offsetX;
+            dy[i] = offsetY;
+            vx[i] = velocityX;
+            vy[i] = velocityY;
+            range2[i] = range * range;
+            alpha[i] = 1;
+            fade[i] = fadeRate;
+            width[i] = w;
+            height[i] = h;
+            region[i] = texture;
+            owner[i] = this;
+            live++;
+            return true;
+        }
+
+        /**
+         * Number of this emitter's particles still alive.
+         */
+        public int getLive() {
+            return live;
+        }
+
+        /**
+         * Removes all of this emitter's particles.
+         */
+        public void kill() {
+            for (int i = size - 1; i >= 0 && live > 0; i--) {
+                if (owner[i] == this) {
+                    remove(i);
+                }
+            }
+        }
+    }
+}
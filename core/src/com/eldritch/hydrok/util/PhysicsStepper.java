@@ -0,0 +1,130 @@
+package com.eldritch.hydrok.util;
+
+import static com.eldritch.hydrok.util.Settings.MAX_PHYSICS_STEPS;
+import static com.eldritch.hydrok.util.Settings.PHYSICS_RATE;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Steps the world at a fixed rate no matter how long frames take.  Frame time builds up and is
+ * spent in whole steps, at most {@link Settings#MAX_PHYSICS_STEPS} per frame so a slow frame
+ * can't snowball into slower ones.
+ *
+ * Frames rarely land on a step, so moving bodies should be drawn at {@link #getPosition(Body)}
+ * and {@link #getAngle(Body)}, which blend the last two steps by how far into the next step the
+ * frame is.
+ */
+public class PhysicsStepper {
+    private static final int VELOCITY_ITERATIONS = 6;
+    private static final int POSITION_ITERATIONS = 2;
+
+    private final World world;
+    private final float step = 1f / PHYSICS_RATE;
+    private final Array<Body> bodies = new Array<Body>();
+    private final ObjectMap<Body, Transform> previous = new ObjectMap<Body, Transform>();
+    private final Array<Transform> saved = new Array<Transform>();
+    private final Pool<Transform> pool = new Pool<Transform>() {
+        @Override
+        protected Transform newObject() {
+            return new Transform();
+        }
+    };
+    private final Vector2 position = new Vector2();
+    private final Array<StepListener> listeners = new Array<StepListener>();
+    private float accumulator = 0;
+
+    public PhysicsStepper(World world) {
+        this.world = world;
+    }
+
+    public void update(float delta) {
+        accumulator = Math.min(accumulator + delta, step * MAX_PHYSICS_STEPS);
+        while (accumulator >= step) {
+            save();
+            world.step(step, VELOCITY_ITERATIONS, POSITION_ITERATIONS);
+            for (StepListener listener : listeners) {
+                listener.stepped();
+            }
+            accumulator -= step;
+        }
+    }
+
+    /**
+     * Called after every world step, so the listener sees each position the bodies pass through
+     * and not just the one a frame ends on.
+     */
+    public void addListener(StepListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * How far the frame is between the last step and the next, from 0 to 1.
+     */
+    public float getAlpha() {
+        return accumulator / step;
+    }
+
+    /**
+     * Where to draw the body this frame.  The vector is reused by the next call.
+     */
+    public Vector2 getPosition(Body body) {
+        position.set(body.getPosition());
+        Transform last = previous.get(body);
+        if (last != null) {
+            float alpha = getAlpha();
+            position.set(
+                    last.x + (position.x - last.x) * alpha,
+                    last.y + (position.y - last.y) * alpha);
+        }
+        return position;
+    }
+
+    /**
+     * The angle to draw the body at this frame, in radians.
+     */
+    public float getAngle(Body body) {
+        Transform last = previous.get(body);
+        if (last == null) {
+            return body.getAngle();
+        }
+        return last.angle + (body.getAngle() - last.angle) * getAlpha();
+    }
+
+    private void save() {
+        // also forgets bodies destroyed since the last step
+        pool.freeAll(saved);
+        saved.clear();
+        previous.clear();
+
+        world.getBodies(bodies);
+        for (Body body : bodies) {
+            // pooled bodies are switched off, and moved without interpolation when reused
+            if (body.getType() == BodyType.StaticBody || !body.isActive()) {
+                continue;
+            }
+
+            Transform transform = pool.obtain();
+            transform.x = body.getPosition().x;
+            transform.y = body.getPosition().y;
+            transform.angle = body.getAngle();
+            previous.put(body, transform);
+            saved.add(transform);
+        }
+    }
+
+    public interface StepListener {
+        void stepped();
+    }
+
+    private static class Transform {
+        float x;
+        float y;
+        float angle;
+    }
+}
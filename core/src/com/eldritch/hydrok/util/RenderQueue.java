@@ -0,0 +1,173 @@
+package com.eldritch.hydrok.util;
+
+import java.util.Comparator;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Collects the frame's sprite draws so they can be issued in as few batch flushes as possible.
+ * The player and entities submit draws while rendering, and the screen flushes the queue once it
+ * has everything, sorted by layer and then by texture.  Draws on the same layer and texture keep
+ * the order they were submitted in.
+ *
+ * The map is drawn separately and sits between {@link Layer#Player} and {@link Layer#Entity}, so
+ * the queue is flushed in two parts around it.  Color is sticky, as with a {@link SpriteBatch}.
+ * Moving bodies should be drawn where the queue says they are, which is between physics steps.
+ */
+public class RenderQueue {
+    private static final float WHITE = Color.WHITE.toFloatBits();
+
+    private final PhysicsStepper physics;
+    private final Array<Command> commands = new Array<Command>();
+    private final Pool<Command> pool = new Pool<Command>() {
+        @Override
+        protected Command newObject() {
+            return new Command();
+        }
+    };
+    private float color = WHITE;
+    private int sequence = 0;
+    private int next = 0;
+    private boolean sorted = false;
+    private int drawCalls = 0;
+
+    public RenderQueue(PhysicsStepper physics) {
+        this.physics = physics;
+    }
+
+    /**
+     * Where to draw the body this frame.  The vector is reused by the next call.
+     */
+    public Vector2 getPosition(Body body) {
+        return physics.getPosition(body);
+    }
+
+    /**
+     * The angle to draw the body at this frame, in radians.
+     */
+    public float getAngle(Body body) {
+        return physics.getAngle(body);
+    }
+
+    public void setColor(Color color) {
+        this.color = color.toFloatBits();
+    }
+
+    public void setColor(float r, float g, float b, float a) {
+        this.color = Color.toFloatBits(r, g, b, a);
+    }
+
+    public void draw(Layer layer, TextureRegion region, float x, float y, float width,
+            float height) {
+        draw(layer, region, x, y, 0, 0, width, height, 1, 1, 0);
+    }
+
+    public void draw(Layer layer, TextureRegion region, float x, float y, float originX,
+            float originY, float width, float height, float scaleX, float scaleY, float rotation) {
+        Command command = pool.obtain();
+        command.layer = layer;
+        command.region = region;
+        command.x = x;
+        command.y = y;
+        command.originX = originX;
+        command.originY = originY;
+        command.width = width;
+        command.height = height;
+        command.scaleX = scaleX;
+        command.scaleY = scaleY;
+        command.rotation = rotation;
+        command.color = color;
+        command.sequence = sequence++;
+        commands.add(command);
+    }
+
+    /**
+     * Draws everything queued up to and including the given layer that hasn't been drawn yet,
+     * in a single begin and end of the batch.
+     */
+    public void flush(SpriteBatch batch, Layer last) {
+        if (!sorted) {
+            commands.sort(ORDER);
+            sorted = true;
+        }
+
+        if (next >= commands.size || commands.get(next).layer.ordinal() > last.ordinal()) {
+            return;
+        }
+
+        batch.begin();
+        while (next < commands.size && commands.get(next).layer.ordinal() <= last.ordinal()) {
+            Command command = commands.get(next++);
+            batch.setColor(command.color);
+            batch.draw(command.region, command.x, command.y, command.originX, command.originY,
+                    command.width, command.height, command.scaleX, command.scaleY,
+                    command.rotation);
+        }
+        batch.setColor(WHITE);
+        batch.end();
+        drawCalls += batch.renderCalls;
+    }
+
+    /**
+     * Number of draw calls the queue has made since it was last cleared.
+     */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * Drops all queued draws, ready for the next frame.
+     */
+    public void clear() {
+        pool.freeAll(commands);
+        commands.clear();
+        color = WHITE;
+        sequence = 0;
+        next = 0;
+        sorted = false;
+        drawCalls = 0;
+    }
+
+    public enum Layer {
+        Player, Entity, Terminator
+    }
+
+    private static final Comparator<Command> ORDER = new Comparator<Command>() {
+        @Override
+        public int compare(Command a, Command b) {
+            if (a.layer != b.layer) {
+                return a.layer.ordinal() - b.layer.ordinal();
+            }
+
+            // any consistent order will do, it only needs to group draws by texture
+            int textureA = System.identityHashCode(a.region.getTexture());
+            int textureB = System.identityHashCode(b.region.getTexture());
+            if (textureA != textureB) {
+                return textureA < textureB ? -1 : 1;
+            }
+            return a.sequence - b.sequence;
+        }
+    };
+
+    private static class Command {
+        Layer layer;
+        TextureRegion region;
+        float x;
+        float y;
+        float originX;
+        float originY;
+        float width;
+        float height;
+        float scaleX;
+        float scaleY;
+        float rotation;
+        float color;
+        int sequence;
+    }
+}
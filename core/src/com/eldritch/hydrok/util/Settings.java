@@ -17,4 +17,27 @@ public class Settings {
 	public static final int CHUNKS = 3;
 	public static final int CHUNK_WIDTH = 15;
 	public static final int CHUNK_HEIGHT = 15;
+	
+	// streaming: how many seconds ahead of the player to build chunks, and how many chunks
+	// may be held at once including the visible grid
+	public static final float PREFETCH_SECONDS = 2f;
+	public static final int CHUNK_BUDGET = CHUNKS * (CHUNKS + 2);
+	
+	// evicted chunks kept as packed data for a cheap restore
+	public static final int CHUNK_CACHE_SIZE = CHUNKS * 4;
+	
+	// chunks further than this from the player take no part in physics until it comes closer
+	public static float ACTIVATION_RADIUS = 10f;
+	
+	// physics steps per second, which can be lowered on weak hardware, and how many steps a slow
+	// frame may catch up on before the simulation is allowed to fall behind
+	public static int PHYSICS_RATE = 60;
+	public static final int MAX_PHYSICS_STEPS = 5;
+	
+	// particles alive at once across all effects, past which new ones are dropped
+	public static final int MAX_PARTICLES = 512;
+	
+	// draw each chunk from a texture its tiles were rendered into once, which is much cheaper
+	// when zoomed out but costs a framebuffer per cached chunk
+	public static boolean CACHE_CHUNK_TEXTURES = false;
 }
@@ -0,0 +1,70 @@
+package com.eldritch.hydrok.util;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * All runtime sprites packed into shared pages, so the player, entities, collectables and the
+ * terminator draw from one texture instead of binding their own.  Regions are looked up by asset
+ * path.
+ *
+ * Nothing is packed until the first lookup, which packs every image in the sprite directories
+ * at once.  A sprite that wasn't found there, for instance because the directories can't be
+ * listed on this backend, is packed when it is first asked for.
+ */
+public class SpriteAtlas implements Disposable {
+    private static final int PAGE_SIZE = 1024;
+    private static final String[] DIRECTORIES = { "sprite", "collectables", "fill" };
+
+    // the atlas textures are backed by the packer's pages, so it lives as long as they do
+    private PixmapPacker packer = null;
+    private TextureAtlas atlas = null;
+
+    /**
+     * The shared region for the sprite.  Callers must not modify it.
+     */
+    public TextureRegion getRegion(String assetName) {
+        if (atlas == null) {
+            // duplicated borders keep neighbouring sprites from bleeding in when stretched
+            packer = new PixmapPacker(PAGE_SIZE, PAGE_SIZE, Format.RGBA8888, 2, true);
+            for (String directory : DIRECTORIES) {
+                for (FileHandle file : Gdx.files.internal(directory).list(".png")) {
+                    pack(file.path());
+                }
+            }
+            atlas = packer.generateTextureAtlas(TextureFilter.Nearest, TextureFilter.Nearest,
+                    false);
+        }
+
+        TextureRegion region = atlas.findRegion(assetName);
+        if (region == null) {
+            pack(assetName);
+            packer.updateTextureAtlas(atlas, TextureFilter.Nearest, TextureFilter.Nearest, false);
+            region = atlas.findRegion(assetName);
+        }
+        return region;
+    }
+
+    @Override
+    public void dispose() {
+        if (atlas != null) {
+            atlas.dispose();
+            packer.dispose();
+            atlas = null;
+            packer = null;
+        }
+    }
+
+    private void pack(String assetName) {
+        Pixmap pixmap = new Pixmap(Gdx.files.internal(assetName));
+        packer.pack(assetName, pixmap);
+        pixmap.dispose();
+    }
+}